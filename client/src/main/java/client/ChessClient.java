@@ -3,6 +3,7 @@ package client;
 import java.util.*;
 
 import chess.*;
+import chess.notation.Uci;
 import client.websocket.NotificationHandler;
 import client.websocket.WebSocketFacade;
 import model.*;
@@ -22,21 +23,12 @@ public class ChessClient implements NotificationHandler {
     private Integer observing;
     // add functionality to save the game that is being observed. Check to see if playing is null and, if so, use observing instead
     private ChessGame.TeamColor color;
-    Map<String, Integer> alphaOrder = new HashMap<>();
 
     public ChessClient(String serverUrl) throws Exception {
         server = new ServerFacade(serverUrl);
         ws = new WebSocketFacade(serverUrl, this);
         playing = null;
-        observing = null;
-        alphaOrder.put("a", 1);
-        alphaOrder.put("b", 2);
-        alphaOrder.put("c", 3);
-        alphaOrder.put("d", 4);
-        alphaOrder.put("e", 5);
-        alphaOrder.put("f", 6);
-        alphaOrder.put("g", 7);
-        alphaOrder.put("h", 8);}
+        observing = null;}
 
     public void run() {
         System.out.println(SET_TEXT_BOLD + " Welcome to the chess game. Login to start.");
@@ -151,10 +143,8 @@ public class ChessClient implements NotificationHandler {
         assertPlaying();
         if (params.length < 4) {throw new ClientException(
                 "Error: Expected <startChar> <startInt> <endChar> <endInt> <Promotion (if applicable)>");}
-        try {Integer startRow = alphaOrder.get(params[0]);
-            Integer endRow = alphaOrder.get(params[2]);
-            ChessPosition start = new ChessPosition(Integer.parseInt(params[1]), startRow);
-            ChessPosition end = new ChessPosition(Integer.parseInt(params[3]), endRow);
+        try {ChessPosition start = Objects.requireNonNull(Uci.parseSquare(params[0] + params[1]));
+            ChessPosition end = Objects.requireNonNull(Uci.parseSquare(params[2] + params[3]));
             ChessPiece.PieceType promotion = null;
             if (params.length == 5) {
                 if (params[4].equals("rook")) {promotion = ChessPiece.PieceType.ROOK;}
@@ -258,8 +248,7 @@ public class ChessClient implements NotificationHandler {
         Integer id = playing;
         if (playing == null) {id = observing;}
         if (params.length == 2) {
-            try {Integer startRow = alphaOrder.get(params[0]);
-                ChessPosition start = new ChessPosition(Integer.parseInt(params[1]), startRow);
+            try {ChessPosition start = Objects.requireNonNull(Uci.parseSquare(params[0] + params[1]));
                 GameList gamesList = server.listGames();
                 if (gamesList.games.isEmpty()) {
                     return "No games have been created...";
@@ -366,18 +355,18 @@ public class ChessClient implements NotificationHandler {
 
     public void getBackColor(ChessPosition start, Integer i, Integer n, Collection<ChessMove> moves,
                              StringBuilder board, ChessBoard boardData, GameData game) {
-        ChessMove option = new ChessMove(start, new ChessPosition(i, n), null);
+        ChessMove option = new ChessMove(start, ChessPosition.of(i, n), null);
         String bgColor = SET_BG_COLOR_LIGHT_GREY;
         if (moves.contains(option)) {bgColor = SET_BG_COLOR_GREEN;}
         if ((i%2==0) == (n%2==0)) {bgColor = SET_BG_COLOR_DARK_GREY;
             if (moves.contains(option)) {
                 bgColor = SET_BG_COLOR_DARK_GREEN;}
-        } if (new ChessPosition(i, n).equals(start)) {bgColor = SET_BG_COLOR_YELLOW;
+        } if (ChessPosition.of(i, n).equals(start)) {bgColor = SET_BG_COLOR_YELLOW;
         } board.append(addPiece(i, n, boardData, bgColor, game.game()));}
 
     public String addPiece(int row, int col, ChessBoard boardData, String bgColor, ChessGame game) {
         var space = new StringBuilder();
-        ChessPiece piece = boardData.getPiece(new ChessPosition(row, col));
+        ChessPiece piece = boardData.getPiece(ChessPosition.of(row, col));
         if (piece == null) {
             space.append(bgColor).append(SET_TEXT_COLOR_WHITE).append(EMPTY);
         } else if (piece.getPieceType().equals(ChessPiece.PieceType.PAWN)) {
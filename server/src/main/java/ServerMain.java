@@ -5,8 +5,10 @@ public class ServerMain {
     public static void main(String[] args) {
         Server server = new Server();
         server.run(8080);
+        // Moves are written to the database in the background; write any still waiting on exit.
+        Runtime.getRuntime().addShutdownHook(new Thread(server::stop));
 
-        var piece = new ChessPiece(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.PAWN);
+        var piece = ChessPiece.of(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.PAWN);
         System.out.println("♕ 240 Chess Server: " + piece);
     }
 }
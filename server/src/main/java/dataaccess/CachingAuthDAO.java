@@ -0,0 +1,210 @@
+package dataaccess;
+
+import model.AuthData;
+import model.UserData;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Keeps recently used auth tokens in memory in front of another {@link AuthDAO}, so
+ * authorizing a request is a map lookup rather than a database query.
+ * <p>
+ * Entries expire a fixed time after they were loaded. When the cache grows past its size, the
+ * least recently used tenth is evicted in one sweep. Removing a token or clearing all tokens
+ * goes to the underlying DAO and drops the cached entries. A lookup that raced with a removal
+ * does not put back the removed token, because entries are only stored if no invalidation
+ * happened while they were being loaded.
+ * <p>
+ * Only tokens that exist are cached; a token that is not found is looked up again each time.
+ */
+public final class CachingAuthDAO implements AuthDAO {
+
+    /**
+     * A snapshot of the cache's counters.
+     */
+    public record Stats(int size, int maxSize, long hits, long misses, long evictions, long expirations,
+                        double hitRatio) {
+    }
+
+    private static final class Entry {
+        final AuthData auth;
+        final long expires;
+        volatile long lastUsed;
+
+        Entry(AuthData auth, long now, long ttlNanos) {
+            this.auth = auth;
+            this.expires = now + ttlNanos;
+            this.lastUsed = now;
+        }
+    }
+
+    private record Candidate(String token, Entry entry, long lastUsed) {
+    }
+
+    private final AuthDAO delegate;
+    private final int maxSize;
+    private final long ttlNanos;
+    private final ConcurrentHashMap<String, Entry> entries = new ConcurrentHashMap<>();
+    // Bumped by every invalidation, so a load that overlapped one is not cached.
+    private final AtomicLong invalidations = new AtomicLong();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder expirations = new LongAdder();
+
+    public CachingAuthDAO(AuthDAO delegate, int maxSize, Duration ttl) {
+        if (maxSize < 1) {
+            throw new IllegalArgumentException("Auth cache needs room for at least one token");
+        }
+        this.delegate = delegate;
+        this.maxSize = maxSize;
+        this.ttlNanos = ttl.toNanos();
+    }
+
+    @Override
+    public AuthData addAuth(UserData userData) throws DataAccessException {
+        AuthData auth = delegate.addAuth(userData);
+        store(auth, invalidations.get());
+        return auth;
+    }
+
+    @Override
+    public void deleteAuths() throws DataAccessException {
+        invalidations.incrementAndGet();
+        try {
+            delegate.deleteAuths();
+        } finally {
+            entries.clear();
+        }
+    }
+
+    @Override
+    public void removeKey(String token) throws DataAccessException {
+        invalidations.incrementAndGet();
+        try {
+            delegate.removeKey(token);
+        } finally {
+            if (token != null) {
+                entries.remove(token);
+            }
+        }
+    }
+
+    /**
+     * A miss loads the token with {@link AuthDAO#getKey(String)} so it can be cached; if that
+     * finds nothing, the underlying {@link AuthDAO#findKey(String)} gives the answer, so
+     * database errors are still reported.
+     */
+    @Override
+    public boolean findKey(String token) throws DataAccessException {
+        if (token == null) {
+            return delegate.findKey(null);
+        }
+        Entry entry = cached(token);
+        if (entry != null) {
+            return true;
+        }
+        long seen = invalidations.get();
+        AuthData auth = delegate.getKey(token);
+        if (auth != null) {
+            store(auth, seen);
+            return true;
+        }
+        return delegate.findKey(token);
+    }
+
+    @Override
+    public AuthData getKey(String token) {
+        if (token == null) {
+            return delegate.getKey(null);
+        }
+        Entry entry = cached(token);
+        if (entry != null) {
+            return entry.auth;
+        }
+        long seen = invalidations.get();
+        AuthData auth = delegate.getKey(token);
+        if (auth != null) {
+            store(auth, seen);
+        }
+        return auth;
+    }
+
+    public Stats stats() {
+        long hitCount = hits.sum();
+        long missCount = misses.sum();
+        long lookups = hitCount + missCount;
+        return new Stats(entries.size(), maxSize, hitCount, missCount, evictions.sum(), expirations.sum(),
+                lookups == 0 ? 0 : (double) hitCount / lookups);
+    }
+
+    private Entry cached(String token) {
+        Entry entry = entries.get(token);
+        long now = System.nanoTime();
+        if (entry != null && now - entry.expires >= 0) {
+            entries.remove(token, entry);
+            expirations.increment();
+            entry = null;
+        }
+        if (entry == null) {
+            misses.increment();
+            return null;
+        }
+        entry.lastUsed = now;
+        hits.increment();
+        return entry;
+    }
+
+    private void store(AuthData auth, long seenInvalidations) {
+        entries.put(auth.token(), new Entry(auth, System.nanoTime(), ttlNanos));
+        // An invalidation since the load began may have removed this token from the database.
+        if (invalidations.get() != seenInvalidations) {
+            entries.remove(auth.token());
+            return;
+        }
+        if (entries.size() > maxSize) {
+            evict();
+        }
+    }
+
+    /**
+     * Drops expired entries, then the least recently used until the cache is at nine tenths
+     * of its size, so the sort is paid for once per tenth of the cache rather than per insert.
+     */
+    private synchronized void evict() {
+        if (entries.size() <= maxSize) {
+            return;
+        }
+        long now = System.nanoTime();
+        // Last use is copied out first, since lookups keep updating it during the sort.
+        List<Candidate> live = new ArrayList<>(entries.size());
+        for (Map.Entry<String, Entry> entry : entries.entrySet()) {
+            Entry value = entry.getValue();
+            if (now - value.expires >= 0) {
+                if (entries.remove(entry.getKey(), value)) {
+                    expirations.increment();
+                }
+            } else {
+                live.add(new Candidate(entry.getKey(), value, value.lastUsed));
+            }
+        }
+        int excess = live.size() - maxSize * 9 / 10;
+        if (excess <= 0) {
+            return;
+        }
+        live.sort(Comparator.comparingLong(Candidate::lastUsed));
+        for (int i = 0; i < excess; i++) {
+            Candidate candidate = live.get(i);
+            if (entries.remove(candidate.token(), candidate.entry())) {
+                evictions.increment();
+            }
+        }
+    }
+}
@@ -0,0 +1,291 @@
+package dataaccess;
+
+import chess.ChessGame;
+import model.GameData;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Keeps games in memory in front of another {@link GameDAO} and writes moves back in the
+ * background, so playing a move costs neither a query nor a serialization on the request path.
+ * <p>
+ * {@link #getGame(int)} serves a cached game once it has been loaded, and
+ * {@link #updateGame(int, ChessGame)} only updates the cache and marks the game dirty. A
+ * background thread writes dirty games to the underlying DAO every flush interval, and
+ * {@link #close()} writes whatever is still pending. A game that fails to write stays dirty
+ * and is tried again on the next flush; it is reported when it starts failing and when it is
+ * written again, while every failed attempt is counted in {@link #stats()}. Player changes, new games and deletions go straight
+ * to the underlying DAO.
+ * <p>
+ * Games are copied going in and coming out, so callers never share a {@link ChessGame} with
+ * the cache or with each other, just as when every read came from the database. Games that
+ * have been written back and not used for the idle timeout are dropped from memory.
+ */
+public final class CachingGameDAO implements GameDAO, AutoCloseable {
+
+    /**
+     * A snapshot of the cache's counters. Flush lag is how long a move waited in memory before
+     * it was written: the oldest still waiting, and the oldest written by the last flush.
+     */
+    public record Stats(int size, long hits, long misses, double hitRatio, int pending, long flushed,
+                        long flushFailures, double oldestPendingMillis, double lastFlushLagMillis,
+                        double maxFlushLagMillis) {
+    }
+
+    private static final class Entry {
+        volatile GameData data;
+        volatile long lastUsed;
+
+        Entry(GameData data, long now) {
+            this.data = data;
+            this.lastUsed = now;
+        }
+    }
+
+    /**
+     * A game waiting to be written, and when the oldest unwritten change to it was made.
+     */
+    private record Pending(ChessGame game, long dirtySince) {
+    }
+
+    // Player change stamps, one per stripe of game IDs.
+    private static final int STAMP_STRIPES = 256;
+
+    private final GameDAO delegate;
+    private final long idleTimeoutNanos;
+    private final ConcurrentHashMap<Integer, Entry> entries = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<Integer, Pending> dirty = new ConcurrentHashMap<>();
+    // Bumped once a game's players have changed in the underlying DAO, so a load that read the
+    // row before the change is not cached. Games sharing a stripe only cost each other a miss.
+    private final AtomicLongArray playerChanges = new AtomicLongArray(STAMP_STRIPES);
+    private final ScheduledExecutorService flusher;
+    // Held while writing back, so flushes never overlap each other or a deletion of all games.
+    private final Object flushLock = new Object();
+    // Games whose last write failed, so a game that keeps failing is reported once. Guarded by flushLock.
+    private final Set<Integer> failing = new HashSet<>();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private long flushed;
+    private long flushFailures;
+    private long lastFlushLagNanos;
+    private long maxFlushLagNanos;
+
+    public CachingGameDAO(GameDAO delegate, Duration flushInterval, Duration idleTimeout) {
+        this.delegate = delegate;
+        this.idleTimeoutNanos = idleTimeout.toNanos();
+        this.flusher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "game-flusher");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long period = Math.max(1, flushInterval.toMillis());
+        flusher.scheduleWithFixedDelay(this::flushAndEvict, period, period, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public void deleteGames() throws DataAccessException {
+        synchronized (flushLock) {
+            try {
+                delegate.deleteGames();
+            } finally {
+                for (int i = 0; i < STAMP_STRIPES; i++) {
+                    playerChanges.incrementAndGet(i);
+                }
+                dirty.clear();
+                entries.clear();
+                failing.clear();
+            }
+        }
+    }
+
+    @Override
+    public Integer createGame(String gameName) throws DataAccessException {
+        return delegate.createGame(gameName);
+    }
+
+    @Override
+    public GameData getGame(int gameID) throws DataAccessException {
+        long now = System.nanoTime();
+        Entry entry = entries.get(gameID);
+        if (entry != null) {
+            hits.increment();
+            entry.lastUsed = now;
+            return copy(entry.data);
+        }
+        misses.increment();
+        long seen = playerChanges.get(stripe(gameID));
+        GameData loaded = delegate.getGame(gameID);
+        if (loaded == null) {
+            return null;
+        }
+        // A change made while this was loading is newer than the database, so it wins. The
+        // stamp is checked inside compute, which updatePlayer patches the cache in, so a
+        // player change either sees this entry or keeps it out.
+        Entry fresh = new Entry(copy(loaded), now);
+        entry = entries.compute(gameID, (id, current) ->
+                current != null || playerChanges.get(stripe(id)) != seen ? current : fresh);
+        return entry == null || entry == fresh ? loaded : copy(entry.data);
+    }
+
+    @Override
+    public void updatePlayer(int gameID, ChessGame.TeamColor color, String username) throws DataAccessException {
+        delegate.updatePlayer(gameID, color, username);
+        playerChanges.incrementAndGet(stripe(gameID));
+        entries.computeIfPresent(gameID, (id, entry) -> {
+            GameData data = entry.data;
+            if (color == ChessGame.TeamColor.WHITE) {
+                entry.data = new GameData(id, username, data.blackUsername(), data.gameName(), data.game());
+            } else if (color == ChessGame.TeamColor.BLACK) {
+                entry.data = new GameData(id, data.whiteUsername(), username, data.gameName(), data.game());
+            }
+            return entry;
+        });
+    }
+
+    /**
+     * Lists games from the underlying DAO, with each game held in memory taken from the cache,
+     * so moves not yet written back, or being written as the list is read, are filled in.
+     */
+    @Override
+    public ArrayList<GameData> getGamesList() throws DataAccessException {
+        ArrayList<GameData> games = delegate.getGamesList();
+        if (!entries.isEmpty() || !dirty.isEmpty()) {
+            games.replaceAll(data -> {
+                ChessGame latest = null;
+                Entry entry = entries.get(data.gameID());
+                if (entry != null) {
+                    latest = entry.data.game();
+                } else {
+                    Pending pending = dirty.get(data.gameID());
+                    latest = pending == null ? null : pending.game();
+                }
+                return latest == null ? data : new GameData(data.gameID(), data.whiteUsername(),
+                        data.blackUsername(), data.gameName(), new ChessGame(latest));
+            });
+        }
+        return games;
+    }
+
+    /**
+     * Updates the cached game and queues it to be written. Only games this cache has loaded
+     * can be updated this way; any other goes straight to the underlying DAO.
+     */
+    @Override
+    public void updateGame(int id, ChessGame game) throws DataAccessException {
+        long now = System.nanoTime();
+        ChessGame snapshot = new ChessGame(game);
+        Entry entry = entries.computeIfPresent(id, (key, cached) -> {
+            GameData data = cached.data;
+            cached.data = new GameData(key, data.whiteUsername(), data.blackUsername(), data.gameName(), snapshot);
+            cached.lastUsed = now;
+            dirty.merge(key, new Pending(snapshot, now),
+                    (older, newer) -> new Pending(newer.game(), older.dirtySince()));
+            return cached;
+        });
+        if (entry == null) {
+            delegate.updateGame(id, game);
+        }
+    }
+
+    /**
+     * Writes every dirty game to the underlying DAO now.
+     *
+     * @return how many games could not be written; they stay dirty
+     */
+    public int flush() {
+        synchronized (flushLock) {
+            long now = System.nanoTime();
+            long oldest = 0;
+            int failed = 0;
+            for (Map.Entry<Integer, Pending> entry : dirty.entrySet()) {
+                Integer id = entry.getKey();
+                Pending pending = entry.getValue();
+                try {
+                    delegate.updateGame(id, pending.game());
+                    flushed++;
+                    oldest = Math.max(oldest, now - pending.dirtySince());
+                    // Cleared only once written, so the game is never missing from both the
+                    // database and the dirty set. A move made during the write stays dirty,
+                    // counted from when this flush began rather than from the written move.
+                    dirty.computeIfPresent(id, (key, current) ->
+                            current == pending ? null : new Pending(current.game(), now));
+                    if (failing.remove(id)) {
+                        System.out.println("CachingGameDAO: game " + id + " written again");
+                    }
+                } catch (DataAccessException | RuntimeException e) {
+                    if (failing.add(id)) {
+                        System.out.println("Error In CachingGameDAO: could not write game " + id + ": "
+                                + e.getMessage() + "; retrying on each flush");
+                    }
+                    flushFailures++;
+                    failed++;
+                }
+            }
+            if (oldest > 0) {
+                lastFlushLagNanos = oldest;
+                maxFlushLagNanos = Math.max(maxFlushLagNanos, oldest);
+            }
+            return failed;
+        }
+    }
+
+    public Stats stats() {
+        long hitCount = hits.sum();
+        long missCount = misses.sum();
+        long lookups = hitCount + missCount;
+        long now = System.nanoTime();
+        long oldestPending = 0;
+        for (Pending pending : dirty.values()) {
+            oldestPending = Math.max(oldestPending, now - pending.dirtySince());
+        }
+        synchronized (flushLock) {
+            return new Stats(entries.size(), hitCount, missCount, lookups == 0 ? 0 : (double) hitCount / lookups,
+                    dirty.size(), flushed, flushFailures, oldestPending / 1e6, lastFlushLagNanos / 1e6,
+                    maxFlushLagNanos / 1e6);
+        }
+    }
+
+    /**
+     * Stops the background flushes and writes everything still pending.
+     */
+    @Override
+    public void close() {
+        flusher.shutdown();
+        try {
+            flusher.awaitTermination(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        flush();
+    }
+
+    private void flushAndEvict() {
+        flush();
+        long now = System.nanoTime();
+        // Checked inside compute, which updateGame also marks games dirty in, so a game cannot
+        // become dirty between the check and its removal.
+        for (Integer id : entries.keySet()) {
+            entries.computeIfPresent(id, (key, entry) ->
+                    now - entry.lastUsed >= idleTimeoutNanos && !dirty.containsKey(key) ? null : entry);
+        }
+    }
+
+    private static int stripe(int gameID) {
+        return Math.floorMod(gameID, STAMP_STRIPES);
+    }
+
+    private static GameData copy(GameData data) {
+        return new GameData(data.gameID(), data.whiteUsername(), data.blackUsername(), data.gameName(),
+                new ChessGame(data.game()));
+    }
+}
@@ -0,0 +1,535 @@
+package dataaccess;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+import java.sql.Statement;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * A bounded pool of database connections, so a request borrows an open connection instead of
+ * paying for a TCP and authentication handshake.
+ * <p>
+ * Borrowed connections are wrapped so that closing them hands them back to the pool; callers
+ * keep using try-with-resources exactly as with an unpooled connection. A connection idle for
+ * more than a moment is checked with {@link Connection#isValid(int)} before it is lent out,
+ * connections idle past the idle timeout are closed by a background sweep, and every
+ * connection is retired once it reaches its maximum lifetime. When all connections are in use,
+ * borrowers wait up to the borrow timeout for one to come back.
+ * <p>
+ * Each connection also keeps the statements prepared on it, keyed by their SQL text, so the
+ * same query prepared again on a later loan reuses the statement instead of parsing it anew.
+ * Closing a cached statement clears it for reuse rather than closing it, and whatever
+ * statements and result sets a borrower leaves open are closed when the connection comes back.
+ */
+public final class ConnectionPool implements AutoCloseable {
+
+    /**
+     * Opens a new physical connection, ready for use.
+     */
+    interface Factory {
+        Connection open() throws SQLException;
+    }
+
+    /**
+     * A snapshot of the pool's counters. Wait times cover every borrow, including those that
+     * did not have to wait.
+     */
+    public record Stats(int active, int idle, int maxSize, int waiting, long borrowed, long timeouts,
+                        long opened, long retired, double averageWaitMillis, double maxWaitMillis,
+                        long statementHits, long statementMisses) {
+    }
+
+    // Connections used this recently are lent out without a validation round trip.
+    private static final long VALIDATION_BYPASS_NANOS = TimeUnit.MILLISECONDS.toNanos(500);
+    private static final int VALIDATION_TIMEOUT_SECONDS = 2;
+
+    private final Factory factory;
+    private final int maxSize;
+    private final long borrowTimeoutNanos;
+    private final long idleTimeoutNanos;
+    private final long maxLifetimeNanos;
+    private final int statementCacheSize;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition returned = lock.newCondition();
+    // Most recently returned first, so the sweep finds the longest idle at the tail.
+    private final ArrayDeque<Pooled> idle = new ArrayDeque<>();
+    private final ScheduledExecutorService sweeper;
+    private int total;
+    private int waiting;
+    private boolean closed;
+
+    private long borrowed;
+    private long timeouts;
+    private long opened;
+    private long retired;
+    private long totalWaitNanos;
+    private long maxWaitNanos;
+    private long statementHits;
+    private long statementMisses;
+
+    ConnectionPool(Factory factory, int maxSize, long borrowTimeoutMillis, long idleTimeoutMillis,
+                   long maxLifetimeMillis, int statementCacheSize) {
+        if (maxSize < 1) {
+            throw new IllegalArgumentException("Connection pool needs room for at least one connection");
+        }
+        this.factory = factory;
+        this.maxSize = maxSize;
+        this.borrowTimeoutNanos = TimeUnit.MILLISECONDS.toNanos(borrowTimeoutMillis);
+        this.idleTimeoutNanos = TimeUnit.MILLISECONDS.toNanos(idleTimeoutMillis);
+        this.maxLifetimeNanos = TimeUnit.MILLISECONDS.toNanos(maxLifetimeMillis);
+        this.statementCacheSize = statementCacheSize;
+        this.sweeper = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "connection-pool-sweeper");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long period = Math.max(1000, Math.min(idleTimeoutMillis, maxLifetimeMillis) / 2);
+        sweeper.scheduleWithFixedDelay(this::evict, period, period, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Lends out a connection, opening one if the pool has room and none is idle.
+     *
+     * @throws SQLTransientConnectionException if none comes free within the borrow timeout
+     * @throws SQLException                    if a new connection cannot be opened
+     */
+    public Connection borrow() throws SQLException {
+        long start = System.nanoTime();
+        long deadline = start + borrowTimeoutNanos;
+        while (true) {
+            Pooled pooled;
+            lock.lock();
+            try {
+                pooled = idle.pollFirst();
+                while (pooled == null && total >= maxSize && !closed) {
+                    long remaining = deadline - System.nanoTime();
+                    if (remaining <= 0) {
+                        timeouts++;
+                        throw new SQLTransientConnectionException(
+                                "No database connection came free within " + borrowTimeoutNanos / 1_000_000 + " ms");
+                    }
+                    waiting++;
+                    try {
+                        returned.awaitNanos(remaining);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        throw new SQLTransientConnectionException("Interrupted waiting for a database connection", e);
+                    } finally {
+                        waiting--;
+                    }
+                    pooled = idle.pollFirst();
+                }
+                if (closed) {
+                    throw new SQLException("Connection pool is closed");
+                }
+                if (pooled == null) {
+                    total++;
+                }
+            } finally {
+                lock.unlock();
+            }
+
+            if (pooled == null) {
+                pooled = open();
+            } else if (!usable(pooled, System.nanoTime())) {
+                retire(pooled);
+                continue;
+            }
+            recordBorrow(System.nanoTime() - start);
+            return pooled.lend();
+        }
+    }
+
+    public Stats stats() {
+        lock.lock();
+        try {
+            return new Stats(total - idle.size(), idle.size(), maxSize, waiting, borrowed, timeouts, opened, retired,
+                    borrowed == 0 ? 0 : totalWaitNanos / 1e6 / borrowed, maxWaitNanos / 1e6, statementHits,
+                    statementMisses);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Closes the idle connections and stops lending; connections still borrowed are closed as
+     * they come back.
+     */
+    @Override
+    public void close() {
+        List<Pooled> toClose;
+        lock.lock();
+        try {
+            closed = true;
+            toClose = new ArrayList<>(idle);
+            idle.clear();
+            returned.signalAll();
+        } finally {
+            lock.unlock();
+        }
+        sweeper.shutdownNow();
+        toClose.forEach(this::retire);
+    }
+
+    private Pooled open() throws SQLException {
+        try {
+            Pooled pooled = new Pooled(factory.open());
+            lock.lock();
+            try {
+                opened++;
+            } finally {
+                lock.unlock();
+            }
+            return pooled;
+        } catch (SQLException | RuntimeException e) {
+            lock.lock();
+            try {
+                total--;
+                returned.signal();
+            } finally {
+                lock.unlock();
+            }
+            throw e;
+        }
+    }
+
+    private boolean usable(Pooled pooled, long now) {
+        if (now - pooled.created >= maxLifetimeNanos) {
+            return false;
+        }
+        if (now - pooled.lastUsed < VALIDATION_BYPASS_NANOS) {
+            return true;
+        }
+        try {
+            return pooled.raw.isValid(VALIDATION_TIMEOUT_SECONDS);
+        } catch (SQLException e) {
+            return false;
+        }
+    }
+
+    private void recordBorrow(long waitNanos) {
+        lock.lock();
+        try {
+            borrowed++;
+            totalWaitNanos += waitNanos;
+            maxWaitNanos = Math.max(maxWaitNanos, waitNanos);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Takes back a connection its borrower closed, retiring it instead if it is past its
+     * lifetime, broken, or the pool is closed.
+     */
+    private void giveBack(Pooled pooled) {
+        boolean keep;
+        try {
+            keep = !pooled.raw.isClosed();
+            if (keep && !pooled.raw.getAutoCommit()) {
+                pooled.raw.rollback();
+                pooled.raw.setAutoCommit(true);
+            }
+        } catch (SQLException e) {
+            keep = false;
+        }
+        long now = System.nanoTime();
+        lock.lock();
+        try {
+            statementHits += pooled.statementHits;
+            statementMisses += pooled.statementMisses;
+            pooled.statementHits = 0;
+            pooled.statementMisses = 0;
+            if (keep && !closed && now - pooled.created < maxLifetimeNanos) {
+                pooled.lastUsed = now;
+                idle.addFirst(pooled);
+                returned.signal();
+                return;
+            }
+        } finally {
+            lock.unlock();
+        }
+        retire(pooled);
+    }
+
+    private void retire(Pooled pooled) {
+        lock.lock();
+        try {
+            total--;
+            retired++;
+            returned.signal();
+        } finally {
+            lock.unlock();
+        }
+        try {
+            pooled.raw.close();
+        } catch (SQLException ignored) {
+            // The connection is being thrown away either way.
+        }
+    }
+
+    /**
+     * Closes idle connections that have sat unused past the idle timeout or outlived their
+     * lifetime.
+     */
+    void evict() {
+        List<Pooled> expired = new ArrayList<>();
+        long now = System.nanoTime();
+        lock.lock();
+        try {
+            idle.removeIf(pooled -> {
+                boolean stale = now - pooled.lastUsed >= idleTimeoutNanos || now - pooled.created >= maxLifetimeNanos;
+                if (stale) {
+                    expired.add(pooled);
+                }
+                return stale;
+            });
+        } finally {
+            lock.unlock();
+        }
+        expired.forEach(this::retire);
+    }
+
+    /**
+     * A physical connection, its timestamps, and the statements prepared on it. The statement
+     * cache is only touched by the connection's current borrower, so it needs no locking.
+     */
+    private final class Pooled {
+        private final Connection raw;
+        private final long created = System.nanoTime();
+        private long lastUsed = created;
+        private final Map<String, PreparedStatement> statements = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, PreparedStatement> eldest) {
+                // A statement still in use is closed when its borrower is done with it instead.
+                if (size() <= statementCacheSize || checkedOut.contains(eldest.getKey())) {
+                    return false;
+                }
+                closeQuietly(eldest.getValue());
+                return true;
+            }
+        };
+        private final Set<String> checkedOut = new HashSet<>();
+        private long statementHits;
+        private long statementMisses;
+
+        Pooled(Connection raw) {
+            this.raw = raw;
+        }
+
+        Connection lend() {
+            Loan loan = new Loan(this);
+            loan.proxy = (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(),
+                    new Class<?>[]{Connection.class}, loan);
+            return loan.proxy;
+        }
+
+        /**
+         * Hands out the cached statement for the SQL, preparing it on a miss. If the cached
+         * statement is already in use in this loan, a second, uncached one is prepared.
+         */
+        StatementLoan prepare(String sql, Loan loan) throws SQLException {
+            PreparedStatement statement = statements.get(sql);
+            if (statement != null && !checkedOut.contains(sql)) {
+                statementHits++;
+            } else {
+                statementMisses++;
+                boolean cacheable = statement == null;
+                statement = raw.prepareStatement(sql);
+                if (!cacheable || statementCacheSize == 0) {
+                    return new StatementLoan(this, sql, statement, false, loan.proxy);
+                }
+                statements.put(sql, statement);
+            }
+            checkedOut.add(sql);
+            return new StatementLoan(this, sql, statement, true, loan.proxy);
+        }
+
+        /**
+         * Takes back a cached statement, cleared for its next use. One that was pushed out of
+         * the cache while in use, or that cannot be cleared, is closed.
+         */
+        void release(String sql, PreparedStatement statement) {
+            checkedOut.remove(sql);
+            try {
+                if (statements.get(sql) == statement) {
+                    statement.clearParameters();
+                    return;
+                }
+            } catch (SQLException e) {
+                statements.remove(sql);
+            }
+            closeQuietly(statement);
+        }
+    }
+
+    /**
+     * One borrower's use of a pooled connection. Each loan gets its own proxy, so a borrower
+     * that closes twice or keeps using a connection after closing it cannot affect the next
+     * borrower. Statements the borrower leaves open are closed when the connection comes back.
+     */
+    private final class Loan implements InvocationHandler {
+        private final Pooled pooled;
+        private final List<AutoCloseable> open = new ArrayList<>();
+        private Connection proxy;
+        private boolean handedBack;
+
+        Loan(Pooled pooled) {
+            this.pooled = pooled;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "close" -> {
+                    if (!handedBack) {
+                        handedBack = true;
+                        for (int i = open.size() - 1; i >= 0; i--) {
+                            closeQuietly(open.get(i));
+                        }
+                        open.clear();
+                        giveBack(pooled);
+                    }
+                    return null;
+                }
+                case "isClosed" -> {
+                    return handedBack || pooled.raw.isClosed();
+                }
+                case "equals" -> {
+                    return proxy == args[0];
+                }
+                case "hashCode" -> {
+                    return System.identityHashCode(proxy);
+                }
+                case "toString" -> {
+                    return "Pooled " + pooled.raw;
+                }
+                default -> {
+                    if (handedBack) {
+                        throw new SQLException("Connection has been returned to the pool");
+                    }
+                    if (method.getName().equals("prepareStatement") && args.length == 1) {
+                        StatementLoan statement = pooled.prepare((String) args[0], this);
+                        open.add(statement);
+                        return statement.proxy;
+                    }
+                    Object result = invokeOn(pooled.raw, method, args);
+                    if (result instanceof Statement statement) {
+                        open.add(statement);
+                    }
+                    return result;
+                }
+            }
+        }
+    }
+
+    /**
+     * A borrower's use of a prepared statement. Closing it closes the result sets it produced
+     * and, for a cached statement, hands the statement back to the cache rather than closing it.
+     */
+    private static final class StatementLoan implements InvocationHandler, AutoCloseable {
+        private final Pooled pooled;
+        private final String sql;
+        private final PreparedStatement raw;
+        private final boolean cached;
+        private final Connection connection;
+        private final List<ResultSet> results = new ArrayList<>(1);
+        private final PreparedStatement proxy;
+        private boolean closed;
+
+        StatementLoan(Pooled pooled, String sql, PreparedStatement raw, boolean cached, Connection connection) {
+            this.pooled = pooled;
+            this.sql = sql;
+            this.raw = raw;
+            this.cached = cached;
+            this.connection = connection;
+            this.proxy = (PreparedStatement) Proxy.newProxyInstance(PreparedStatement.class.getClassLoader(),
+                    new Class<?>[]{PreparedStatement.class}, this);
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "close" -> {
+                    close();
+                    return null;
+                }
+                case "isClosed" -> {
+                    return closed;
+                }
+                case "getConnection" -> {
+                    return connection;
+                }
+                case "equals" -> {
+                    return proxy == args[0];
+                }
+                case "hashCode" -> {
+                    return System.identityHashCode(proxy);
+                }
+                case "toString" -> {
+                    return "Pooled " + raw;
+                }
+                default -> {
+                    if (closed) {
+                        throw new SQLException("Statement is closed");
+                    }
+                    Object result = invokeOn(raw, method, args);
+                    if (result instanceof ResultSet resultSet) {
+                        results.add(resultSet);
+                    }
+                    return result;
+                }
+            }
+        }
+
+        @Override
+        public void close() {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            results.forEach(ConnectionPool::closeQuietly);
+            results.clear();
+            if (cached) {
+                pooled.release(sql, raw);
+            } else {
+                closeQuietly(raw);
+            }
+        }
+    }
+
+    private static Object invokeOn(Object target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+
+    private static void closeQuietly(AutoCloseable closeable) {
+        try {
+            closeable.close();
+        } catch (Exception ignored) {
+            // Cleaning up either way.
+        }
+    }
+}
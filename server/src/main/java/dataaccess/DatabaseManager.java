@@ -3,6 +3,7 @@ package dataaccess;
 import org.mindrot.jbcrypt.BCrypt;
 
 import java.sql.*;
+import java.time.Duration;
 import java.util.Properties;
 import chess.ChessGame;
 import com.google.gson.Gson;
@@ -16,6 +17,11 @@ public class DatabaseManager {
     private static String dbUsername;
     private static String dbPassword;
     private static String connectionUrl;
+    private static boolean binaryGames;
+    private static Duration gameFlushInterval;
+    private static Properties poolProperties;
+    // Opened on first use and again after close(), so a server can stop and start in one process.
+    private static ConnectionPool pool;
 
     /*
      * Load the database information for the db.properties file.
@@ -38,10 +44,10 @@ public class DatabaseManager {
     }
 
     /**
-     * Create a connection to the database and sets the catalog based upon the
-     * properties specified in db.properties. Connections to the database should
-     * be short-lived, and you must close the connection when you are done with it.
-     * The easiest way to do that is with a try-with-resource block.
+     * Borrows a connection to the database from the pool, with the catalog set based
+     * upon the properties specified in db.properties. Connections to the database should
+     * be short-lived, and you must close the connection when you are done with it, which
+     * hands it back to the pool. The easiest way to do that is with a try-with-resource block.
      * <br/>
      * <code>
      * try (var conn = DatabaseManager.getConnection()) {
@@ -51,15 +57,58 @@ public class DatabaseManager {
      */
     static Connection getConnection() throws DataAccessException {
         try {
-            //do not wrap the following line with a try-with-resources
-            var conn = DriverManager.getConnection(connectionUrl, dbUsername, dbPassword);
-            conn.setCatalog(databaseName);
-            return conn;
+            return pool().borrow();
         } catch (SQLException ex) {
             throw new DataAccessException("failed to get connection", ex);
         }
     }
 
+    /**
+     * Closes every pooled connection. Call it once nothing else will write, after pending
+     * moves have been flushed; a later {@link #getConnection()} opens a new pool.
+     */
+    public static synchronized void close() {
+        if (pool != null) {
+            pool.close();
+            pool = null;
+        }
+    }
+
+    /**
+     * @return how often moves held in memory are written to the database, from
+     * db.gameFlushMillis in db.properties
+     */
+    public static Duration gameFlushInterval() {
+        return gameFlushInterval;
+    }
+
+    /**
+     * @return the connection pool's counters: connections in use and idle, and how long
+     * borrowers have waited
+     */
+    public static ConnectionPool.Stats poolStats() {
+        return pool().stats();
+    }
+
+    private static synchronized ConnectionPool pool() {
+        if (pool == null) {
+            pool = new ConnectionPool(DatabaseManager::openConnection,
+                    Integer.parseInt(poolProperties.getProperty("db.pool.maxSize", "10")),
+                    Long.parseLong(poolProperties.getProperty("db.pool.borrowTimeoutMillis", "5000")),
+                    Long.parseLong(poolProperties.getProperty("db.pool.idleTimeoutMillis", "600000")),
+                    Long.parseLong(poolProperties.getProperty("db.pool.maxLifetimeMillis", "1800000")),
+                    Integer.parseInt(poolProperties.getProperty("db.pool.statementCacheSize", "64")));
+        }
+        return pool;
+    }
+
+    private static Connection openConnection() throws SQLException {
+        //do not wrap the following line with a try-with-resources
+        var conn = DriverManager.getConnection(connectionUrl, dbUsername, dbPassword);
+        conn.setCatalog(databaseName);
+        return conn;
+    }
+
     private static void loadPropertiesFromResources() {
         try (var propStream = Thread.currentThread().getContextClassLoader().getResourceAsStream("db.properties")) {
             if (propStream == null) {
@@ -80,6 +129,20 @@ public class DatabaseManager {
 
         var host = props.getProperty("db.host");
         var port = Integer.parseInt(props.getProperty("db.port"));
-        connectionUrl = String.format("jdbc:mysql://%s:%d", host, port);
+        // Statements are prepared on the server once per pooled connection and then reused
+        // from the pool's statement cache.
+        connectionUrl = String.format("jdbc:mysql://%s:%d?useServerPrepStmts=true", host, port);
+        binaryGames = props.getProperty("db.gameStorage", "json").equalsIgnoreCase("binary");
+        gameFlushInterval = Duration.ofMillis(Long.parseLong(props.getProperty("db.gameFlushMillis", "1000")));
+
+        poolProperties = props;
+    }
+
+    /**
+     * @return true if db.properties sets db.gameStorage to "binary", so games are stored in
+     * their compact binary form rather than as JSON
+     */
+    static boolean binaryGames() {
+        return binaryGames;
     }
 }
@@ -27,7 +27,7 @@ public class SQLAuthDAO implements AuthDAO {
         try (Connection conn = DatabaseManager.getConnection()) {
             String token = generateToken();
             AuthData authKey = new AuthData(token, info.username());
-            while (findKey(authKey.token())) {
+            while (findKey(conn, authKey.token())) {
                 token = generateToken();
                 authKey = new AuthData(token, info.username());
             }
@@ -71,19 +71,25 @@ public class SQLAuthDAO implements AuthDAO {
     @Override
     public boolean findKey(String token) throws DataAccessException {
         try (Connection conn = DatabaseManager.getConnection()) {
-            var statement = "SELECT token FROM auths WHERE token=?";
-            PreparedStatement ps = conn.prepareStatement(statement);
+            return findKey(conn, token);
+        } catch (DataAccessException | SQLException e) {
+            throw new DataAccessException("System Error");
+        }
+    }
+
+    private static boolean findKey(Connection conn, String token) throws SQLException {
+        var statement = "SELECT token FROM auths WHERE token=?";
+        try (PreparedStatement ps = conn.prepareStatement(statement)) {
             ps.setString(1, token);
-            ResultSet rs = ps.executeQuery();
-            while (rs.next()) {
-                String gotToken = rs.getString("token");
-                if (Objects.equals(gotToken, token)) {
-                    return true;
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    String gotToken = rs.getString("token");
+                    if (Objects.equals(gotToken, token)) {
+                        return true;
+                    }
                 }
             }
             return false;
-        } catch (DataAccessException | SQLException e) {
-            throw new DataAccessException("System Error");
         }
     }
 
@@ -91,15 +97,17 @@ public class SQLAuthDAO implements AuthDAO {
     public AuthData getKey(String token) {
         try (Connection conn = DatabaseManager.getConnection()) {
             var statement = "SELECT token, username FROM auths WHERE token=?";
-            PreparedStatement ps = conn.prepareStatement(statement);
-            ps.setString(1, token);
-            ResultSet rs = ps.executeQuery();
-            while (rs.next()) {
-                String gotToken = rs.getString("token");
-                String gotUser = rs.getString("username");
-                AuthData a = new AuthData(gotToken, gotUser);
-                if (Objects.equals(gotToken, token)) {
-                    return a;
+            try (PreparedStatement ps = conn.prepareStatement(statement)) {
+                ps.setString(1, token);
+                try (ResultSet rs = ps.executeQuery()) {
+                    while (rs.next()) {
+                        String gotToken = rs.getString("token");
+                        String gotUser = rs.getString("username");
+                        AuthData a = new AuthData(gotToken, gotUser);
+                        if (Objects.equals(gotToken, token)) {
+                            return a;
+                        }
+                    }
                 }
             }
         } catch (DataAccessException | SQLException e) {
@@ -33,6 +33,7 @@ public class SQLDataAccess{
             `blackUsername` varchar(255),
             `gameName` varchar(255) NOT NULL,
             `gameData` text NOT NULL,
+            `gameBinary` blob,
              PRIMARY KEY (`gameID`),
              INDEX (`gameName`)
         )
@@ -47,6 +48,14 @@ public class SQLDataAccess{
                     preparedStatement.executeUpdate();
                 }
             }
+            // Tables made before games could be stored in binary lack the column.
+            try (var columns = conn.getMetaData().getColumns(conn.getCatalog(), null, "games", "gameBinary")) {
+                if (!columns.next()) {
+                    try (var preparedStatement = conn.prepareStatement("ALTER TABLE games ADD COLUMN `gameBinary` blob")) {
+                        preparedStatement.executeUpdate();
+                    }
+                }
+            }
         } catch (SQLException ex) {
             throw new DataAccessException(String.format("Unable to configure database: %s", ex.getMessage()));
         }
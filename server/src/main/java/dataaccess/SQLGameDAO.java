@@ -1,24 +1,62 @@
 package dataaccess;
 
 import chess.ChessGame;
+import chess.GameCodec;
 import com.google.gson.Gson;
+import com.google.gson.JsonParseException;
 import model.GameData;
 
 import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.sql.Types;
 import java.util.ArrayList;
 
 
 public class SQLGameDAO implements GameDAO {
 
+    // Games are written either as JSON text in gameData or in GameCodec's binary form in
+    // gameBinary. Rows of either kind can always be read, so the setting can change at any time.
+    private final boolean binary;
+
     public SQLGameDAO() {
+        this(DatabaseManager.binaryGames());
+    }
+
+    public SQLGameDAO(boolean binary) {
+        this.binary = binary;
         try {new SQLDataAccess();} catch (DataAccessException e) {
             throw new RuntimeException(e);
         }
     }
 
+    private void setGame(PreparedStatement ps, int dataIndex, int binaryIndex, ChessGame game) throws SQLException {
+        if (binary) {
+            ps.setString(dataIndex, "");
+            ps.setBytes(binaryIndex, GameCodec.encode(game));
+        } else {
+            ps.setString(dataIndex, new Gson().toJson(game));
+            ps.setNull(binaryIndex, Types.BLOB);
+        }
+    }
+
+    /**
+     * Reads the game from the current row, reporting a row that cannot be decoded as a storage
+     * failure like any other rather than as a runtime exception.
+     */
+    private static ChessGame readGame(ResultSet rs) throws SQLException {
+        try {
+            byte[] gameBinary = rs.getBytes("gameBinary");
+            if (gameBinary != null) {
+                return GameCodec.decode(gameBinary);
+            }
+            return new Gson().fromJson(rs.getString("gameData"), ChessGame.class);
+        } catch (IllegalArgumentException | JsonParseException e) {
+            throw new SQLException("Could not read game " + rs.getInt("gameID"), e);
+        }
+    }
+
     @Override
     public void deleteGames() throws DataAccessException {
         try (Connection conn = DatabaseManager.getConnection()) {
@@ -34,20 +72,22 @@ public class SQLGameDAO implements GameDAO {
     @Override
     public Integer createGame(String gameName) throws DataAccessException {
         try (Connection conn = DatabaseManager.getConnection()) {
-            String gameString = new Gson().toJson(new ChessGame());
-            var statement = "INSERT INTO games (whiteUsername, blackUsername, gameName, gameData) VALUES (?, ?, ?, ?)";
-            PreparedStatement ps = conn.prepareStatement(statement);
-            ps.setString(1, null);
-            ps.setString(2, null);
-            ps.setString(3, gameName);
-            ps.setString(4, gameString);
-            ps.executeUpdate();
+            var statement = "INSERT INTO games (whiteUsername, blackUsername, gameName, gameData, gameBinary) VALUES (?, ?, ?, ?, ?)";
+            try (PreparedStatement ps = conn.prepareStatement(statement)) {
+                ps.setString(1, null);
+                ps.setString(2, null);
+                ps.setString(3, gameName);
+                setGame(ps, 4, 5, new ChessGame());
+                ps.executeUpdate();
+            }
             var statement2 = "SELECT gameID FROM games WHERE gameName=?";
-            PreparedStatement ps2 = conn.prepareStatement(statement2);
-            ps2.setString(1, gameName);
-            ResultSet rs = ps2.executeQuery();
-            if (rs.next()) {
-                return rs.getInt("gameID");
+            try (PreparedStatement ps2 = conn.prepareStatement(statement2)) {
+                ps2.setString(1, gameName);
+                try (ResultSet rs = ps2.executeQuery()) {
+                    if (rs.next()) {
+                        return rs.getInt("gameID");
+                    }
+                }
             }
         } catch (DataAccessException | SQLException e) {
             System.out.println("Error In SQLGameDAO: " + e.getMessage());
@@ -59,19 +99,19 @@ public class SQLGameDAO implements GameDAO {
     @Override
     public GameData getGame(int gameID) throws DataAccessException {
         try (Connection conn = DatabaseManager.getConnection()) {
-            var statement = "SELECT gameID, whiteUsername, blackUsername, gameName, gameData FROM games WHERE gameID=?";
-            PreparedStatement ps = conn.prepareStatement(statement);
-            ps.setInt(1, gameID);
-            ResultSet rs = ps.executeQuery();
-            while (rs.next()) {
-                int id = rs.getInt("gameID");
-                String whiteUser = rs.getString("whiteUsername");
-                String blackUser = rs.getString("blackUsername");
-                String gameName = rs.getString("gameName");
-                String gameData = rs.getString("gameData");
-                if (gameID == id) {
-                    ChessGame game = new Gson().fromJson(gameData, ChessGame.class);
-                    return new GameData(id, whiteUser, blackUser, gameName, game);
+            var statement = "SELECT gameID, whiteUsername, blackUsername, gameName, gameData, gameBinary FROM games WHERE gameID=?";
+            try (PreparedStatement ps = conn.prepareStatement(statement)) {
+                ps.setInt(1, gameID);
+                try (ResultSet rs = ps.executeQuery()) {
+                    while (rs.next()) {
+                        int id = rs.getInt("gameID");
+                        String whiteUser = rs.getString("whiteUsername");
+                        String blackUser = rs.getString("blackUsername");
+                        String gameName = rs.getString("gameName");
+                        if (gameID == id) {
+                            return new GameData(id, whiteUser, blackUser, gameName, readGame(rs));
+                        }
+                    }
                 }
             }
         } catch (DataAccessException | SQLException e) {
@@ -104,7 +144,7 @@ public class SQLGameDAO implements GameDAO {
     public ArrayList<GameData> getGamesList() throws DataAccessException {
         ArrayList<GameData> result = new ArrayList<>();
         try (Connection conn = DatabaseManager.getConnection()) {
-            var statement = "SELECT gameID, whiteUsername, blackUsername, gameName, gameData FROM games";
+            var statement = "SELECT gameID, whiteUsername, blackUsername, gameName, gameData, gameBinary FROM games";
             try (PreparedStatement ps = conn.prepareStatement(statement)) {
                 try (ResultSet rs = ps.executeQuery()) {
                     while (rs.next()) {
@@ -112,9 +152,7 @@ public class SQLGameDAO implements GameDAO {
                         String whiteUser = rs.getString("whiteUsername");
                         String blackUser = rs.getString("blackUsername");
                         String gameName = rs.getString("gameName");
-                        String gameString = rs.getString("gameData");
-                        ChessGame game = new Gson().fromJson(gameString, ChessGame.class);
-                        result.add(new GameData(id, whiteUser, blackUser, gameName, game));
+                        result.add(new GameData(id, whiteUser, blackUser, gameName, readGame(rs)));
                     }
                     return result;
                 }
@@ -127,11 +165,10 @@ public class SQLGameDAO implements GameDAO {
     @Override
     public void updateGame(int id, ChessGame game) throws DataAccessException {
         try (Connection conn = DatabaseManager.getConnection()) {
-            var statement = "UPDATE games SET gameData=? WHERE gameID=?";
+            var statement = "UPDATE games SET gameData=?, gameBinary=? WHERE gameID=?";
             try (PreparedStatement ps = conn.prepareStatement(statement)) {
-                String gameString = new Gson().toJson(game);
-                ps.setString(1, gameString);
-                ps.setInt(2, id);
+                setGame(ps, 1, 2, game);
+                ps.setInt(3, id);
                 ps.executeUpdate();
             }
         } catch (DataAccessException | SQLException e) {
@@ -10,11 +10,19 @@ import model.*;
 import server.websocket.WebSocketHandler;
 import service.*;
 
+import java.time.Duration;
+import java.util.Map;
+
 
 public class Server {
 
     private final Javalin javalin;
-    private final Service service = new Service(new SQLUserDAO(), new SQLGameDAO(), new SQLAuthDAO());
+    // Tokens are checked on every request; keep the active ones in memory.
+    private final CachingAuthDAO authDAO = new CachingAuthDAO(new SQLAuthDAO(), 10_000, Duration.ofMinutes(15));
+    // Games being played are served from memory, and their moves written back in the background.
+    private final CachingGameDAO gameDAO = new CachingGameDAO(new SQLGameDAO(), DatabaseManager.gameFlushInterval(),
+            Duration.ofMinutes(30));
+    private final Service service = new Service(new SQLUserDAO(), gameDAO, authDAO);
     private final WebSocketHandler webSocketHandler = new WebSocketHandler(service);
 
     public void clear(Context context) {
@@ -172,6 +180,14 @@ public class Server {
         }
     }
 
+    private void metrics(Context context) {
+        context.status(200);
+        context.result(new Gson().toJson(Map.of(
+                "connectionPool", DatabaseManager.poolStats(),
+                "authCache", authDAO.stats(),
+                "gameCache", gameDAO.stats())));
+    }
+
     public Server() {
         javalin = Javalin.create(config -> config.staticFiles.add("web"))
 
@@ -184,6 +200,7 @@ public class Server {
                 .put("/game", this::joinGame)
                 .delete("/game", this::leaveGame)
                 .delete("/db", this::clear)
+                .get("/metrics", this::metrics)
                 .ws("/ws", ws -> {
                     ws.onConnect(webSocketHandler);
                     ws.onMessage(webSocketHandler);
@@ -198,5 +215,9 @@ public class Server {
 
     public void stop() {
         javalin.stop();
+        webSocketHandler.close();
+        gameDAO.close();
+        // Last, as the game cache's final flush still needs a connection.
+        DatabaseManager.close();
     }
 }
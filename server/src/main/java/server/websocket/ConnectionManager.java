@@ -6,18 +6,17 @@ import websocket.messages.ServerMessage;
 
 import java.io.IOException;
 import java.util.ArrayList;
-import java.util.HashMap;
+import java.util.concurrent.ConcurrentHashMap;
 
+/**
+ * The sessions in each game. Games are handled in parallel, so the map of games is concurrent;
+ * each game's list is only touched by that game's commands, which run one at a time.
+ */
 public class ConnectionManager {
-    public final HashMap<Integer, ArrayList<Session>> room = new HashMap<>();
+    public final ConcurrentHashMap<Integer, ArrayList<Session>> room = new ConcurrentHashMap<>();
 
     public void add(Session session, Integer id) {
-        ArrayList<Session> connection = room.get(id);
-        if (connection == null) {
-            connection = new ArrayList<>();
-        }
-        connection.add(session);
-        room.put(id, connection);
+        room.computeIfAbsent(id, key -> new ArrayList<>()).add(session);
     }
 
     public void remove(Session session, Integer id) {
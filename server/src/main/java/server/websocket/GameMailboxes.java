@@ -0,0 +1,111 @@
+package server.websocket;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Runs the commands for each game one at a time and in the order they arrived, while different
+ * games run in parallel.
+ * <p>
+ * Each game with commands waiting has a mailbox, drained by a single virtual thread. A mailbox
+ * is created when the first command for an idle game arrives and removed once it is empty, so
+ * only games with work in flight hold one. Creating, checking and removing a game's mailbox all
+ * happen inside {@link ConcurrentHashMap#compute}, which locks only that game's entry; there is
+ * no lock shared between games.
+ */
+public class GameMailboxes implements AutoCloseable {
+
+    private static final class Mailbox {
+        final ConcurrentLinkedQueue<Runnable> queue = new ConcurrentLinkedQueue<>();
+    }
+
+    private final ConcurrentHashMap<Integer, Mailbox> mailboxes = new ConcurrentHashMap<>();
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+    private final LongAdder failures = new LongAdder();
+
+    /**
+     * Queues a command behind any others for the same game. Commands without a game run on
+     * their own.
+     */
+    public void submit(Integer gameID, Runnable command) {
+        if (gameID == null) {
+            executor.execute(() -> run(command));
+            return;
+        }
+        Mailbox[] started = new Mailbox[1];
+        mailboxes.compute(gameID, (id, mailbox) -> {
+            if (mailbox == null) {
+                mailbox = new Mailbox();
+                started[0] = mailbox;
+            }
+            mailbox.queue.add(command);
+            return mailbox;
+        });
+        if (started[0] != null) {
+            executor.execute(() -> drain(gameID, started[0]));
+        }
+    }
+
+    /**
+     * @return how many games have commands queued or running
+     */
+    public int activeGames() {
+        return mailboxes.size();
+    }
+
+    /**
+     * @return how many commands have thrown instead of returning
+     */
+    public long failures() {
+        return failures.sum();
+    }
+
+    /**
+     * Stops taking commands and waits for the queued ones to finish.
+     */
+    @Override
+    public void close() {
+        executor.shutdown();
+        try {
+            executor.awaitTermination(30, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void drain(Integer gameID, Mailbox mailbox) {
+        while (true) {
+            Runnable command = mailbox.queue.poll();
+            if (command != null) {
+                run(command);
+                continue;
+            }
+            // Removed only if still empty, under the same entry lock submit adds with, so a
+            // command is either seen here or starts a new mailbox.
+            boolean[] retired = new boolean[1];
+            mailboxes.compute(gameID, (id, current) -> {
+                if (current == mailbox && mailbox.queue.isEmpty()) {
+                    retired[0] = true;
+                    return null;
+                }
+                return current;
+            });
+            if (retired[0]) {
+                return;
+            }
+        }
+    }
+
+    private void run(Runnable command) {
+        try {
+            command.run();
+        } catch (RuntimeException e) {
+            failures.increment();
+            e.printStackTrace();
+        }
+    }
+}
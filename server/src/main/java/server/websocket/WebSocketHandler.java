@@ -3,6 +3,7 @@ package server.websocket;
 import chess.ChessGame;
 import chess.ChessMove;
 import chess.InvalidMoveException;
+import chess.notation.Uci;
 import com.google.gson.Gson;
 import dataaccess.DataAccessException;
 import dataaccess.SQLGameDAO;
@@ -24,27 +25,18 @@ import websocket.messages.Notification;
 import service.Service;
 
 import java.io.IOException;
-import java.util.HashMap;
-import java.util.Map;
 import java.util.Objects;
 
 public class WebSocketHandler implements WsConnectHandler, WsMessageHandler, WsCloseHandler {
 
     private final ConnectionManager connections = new ConnectionManager();
+    // Commands for a game run one at a time, so two moves cannot interleave their read-modify-write.
+    private final GameMailboxes mailboxes = new GameMailboxes();
     private final Service service;
     final SQLGameDAO gameDAO = new SQLGameDAO();
-    Map<Integer, String> alphaBack = new HashMap<>();
 
     public WebSocketHandler(Service service) {
         this.service = service;
-        alphaBack.put(1, "a");
-        alphaBack.put(2, "b");
-        alphaBack.put(3, "c");
-        alphaBack.put(4, "d");
-        alphaBack.put(5, "e");
-        alphaBack.put(6, "f");
-        alphaBack.put(7, "g");
-        alphaBack.put(8, "h");
     }
 
     @Override
@@ -55,19 +47,31 @@ public class WebSocketHandler implements WsConnectHandler, WsMessageHandler, WsC
 
     @Override
     public void handleMessage(WsMessageContext ctx) {
+        UserGameCommand action = new Gson().fromJson(ctx.message(), UserGameCommand.class);
+        Session session = ctx.session;
+        mailboxes.submit(action.getGameID(), () -> handleCommand(action, session));
+    }
+
+    private void handleCommand(UserGameCommand action, Session session) {
         try {
-            UserGameCommand action = new Gson().fromJson(ctx.message(), UserGameCommand.class);
             switch (action.getCommandType()) {
-                case CONNECT -> connect(action.getAuthToken(), action.getGameID(), ctx.session);
-                case LEAVE -> leave(action.getAuthToken(), action.getGameID(), ctx.session);
-                case RESIGN -> resign(action.getAuthToken(), action.getGameID(), ctx.session);
-                case MAKE_MOVE -> makeMove(action.getAuthToken(), action.getGameID(), action.getMove(), ctx.session);
+                case CONNECT -> connect(action.getAuthToken(), action.getGameID(), session);
+                case LEAVE -> leave(action.getAuthToken(), action.getGameID(), session);
+                case RESIGN -> resign(action.getAuthToken(), action.getGameID(), session);
+                case MAKE_MOVE -> makeMove(action.getAuthToken(), action.getGameID(), action.getMove(), session);
             }
         } catch (IOException | DataAccessException | InvalidMoveException ex) {
             ex.printStackTrace();
         }
     }
 
+    /**
+     * Waits for the commands already received to finish.
+     */
+    public void close() {
+        mailboxes.close();
+    }
+
     @Override
     public void handleClose(@NotNull WsCloseContext ctx) {
         System.out.println("Websocket closed");
@@ -114,13 +118,7 @@ public class WebSocketHandler implements WsConnectHandler, WsMessageHandler, WsC
     }
 
     private String moveResponse(ChessMove move) {
-        Integer startRow = move.getStartPosition().getRow();
-        Integer startCol = move.getStartPosition().getColumn();
-        Integer endRow = move.getEndPosition().getRow();
-        Integer endCol = move.getEndPosition().getColumn();
-        String startChar = alphaBack.get(startCol);
-        String endChar = alphaBack.get(endCol);
-        return String.format("%d%s to %d%s", startRow, startChar, endRow, endChar);
+        return String.format("%s to %s", Uci.squareName(move.getStartPosition()), Uci.squareName(move.getEndPosition()));
     }
 
     public void makeMove(String auth, Integer id, ChessMove move, Session session) throws IOException, InvalidMoveException {
@@ -145,21 +143,34 @@ public class WebSocketHandler implements WsConnectHandler, WsMessageHandler, WsC
                 var message = String.format("%s made a move from %s", user, moveString);
                 var notification = new Notification(message);
                 connections.broadcast(session, notification, id);
-                if (!game.game().playing && (game.game().whiteCheck || game.game().blackCheck)) {
+                // Leaving the opponent without a legal move ends the game by mate or stalemate,
+                // even on the hundredth halfmove or a third repetition, as in makeMove.
+                ChessGame chess = game.game();
+                ChessGame.TeamColor opponentColor =
+                        chess.getBoard().getPiece(move.getEndPosition()).getTeamColor() == ChessGame.TeamColor.WHITE
+                                ? ChessGame.TeamColor.BLACK : ChessGame.TeamColor.WHITE;
+                boolean noMove = !chess.playing && chess.isSurrounded(opponentColor);
+                if (noMove && chess.isInCheck(opponentColor)) {
                     var checkmate = String.format("Game Over. %s is in Checkmate. %s WINS!", opponent, user);
                     var checkmateNotification = new Notification(checkmate);
                     connections.broadcast(null, checkmateNotification, id);
                 }
-                if (game.game().playing && (game.game().whiteCheck || game.game().blackCheck)) {
-                    var check = String.format("%s is in Check", opponent);
-                    var checkNotification = new Notification(check);
-                    connections.broadcast(null, checkNotification, id);
-                }
-                if (!game.game().playing && !game.game().whiteCheck && !game.game().blackCheck) {
+                else if (noMove) {
                     var stale = "Game Over. Stalemate.";
                     var stalemateNotification = new Notification(stale);
                     connections.broadcast(null, stalemateNotification, id);
                 }
+                else if (!chess.playing && (chess.isThreefoldRepetition() || chess.isFiftyMoveRule())) {
+                    var reason = chess.isFiftyMoveRule() ? "the fifty-move rule" : "threefold repetition";
+                    var draw = String.format("Game Over. Draw by %s.", reason);
+                    var drawNotification = new Notification(draw);
+                    connections.broadcast(null, drawNotification, id);
+                }
+                else if (chess.playing && (chess.whiteCheck || chess.blackCheck)) {
+                    var check = String.format("%s is in Check", opponent);
+                    var checkNotification = new Notification(check);
+                    connections.broadcast(null, checkNotification, id);
+                }
             } catch (DataAccessException e) {
                 if (e.getMessage().equals("GE")) {
                     var error = new Error("Error: this game has ended.");
@@ -0,0 +1,116 @@
+package dataaccess;
+
+import model.AuthData;
+import model.UserData;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+public class CachingAuthDAOTests {
+
+    /**
+     * Counts the lookups that get past the cache.
+     */
+    private static final class CountingAuthDAO extends MemoryAuthDAO {
+        int lookups;
+
+        @Override
+        public boolean findKey(String token) {
+            lookups++;
+            return super.findKey(token);
+        }
+
+        @Override
+        public AuthData getKey(String token) {
+            lookups++;
+            return super.getKey(token);
+        }
+    }
+
+    private CountingAuthDAO backing;
+    private final UserData user = new UserData("p1", "pass", "1@email");
+
+    @BeforeEach
+    public void setUp() {
+        backing = new CountingAuthDAO();
+    }
+
+    @Test
+    @DisplayName("Lookups Are Served From Memory")
+    public void hits() throws DataAccessException {
+        CachingAuthDAO cache = new CachingAuthDAO(backing, 100, Duration.ofMinutes(1));
+        AuthData auth = cache.addAuth(user);
+        backing.lookups = 0;
+        for (int i = 0; i < 10; i++) {
+            Assertions.assertTrue(cache.findKey(auth.token()));
+            Assertions.assertEquals(auth, cache.getKey(auth.token()));
+        }
+        Assertions.assertEquals(0, backing.lookups, "Cached token should not be looked up again");
+        Assertions.assertEquals(20, cache.stats().hits());
+        Assertions.assertEquals(1.0, cache.stats().hitRatio());
+    }
+
+    @Test
+    @DisplayName("Unknown Tokens Are Not Cached")
+    public void misses() throws DataAccessException {
+        CachingAuthDAO cache = new CachingAuthDAO(backing, 100, Duration.ofMinutes(1));
+        Assertions.assertFalse(cache.findKey("nope"));
+        Assertions.assertNull(cache.getKey("nope"));
+        Assertions.assertFalse(cache.findKey(null));
+        Assertions.assertEquals(0, cache.stats().size());
+        Assertions.assertEquals(2, cache.stats().misses());
+
+        AuthData auth = backing.addAuth(user);
+        Assertions.assertTrue(cache.findKey(auth.token()), "Token added behind the cache should be found");
+        backing.lookups = 0;
+        Assertions.assertEquals(auth, cache.getKey(auth.token()));
+        Assertions.assertEquals(0, backing.lookups, "Token found on a miss should be cached");
+    }
+
+    @Test
+    @DisplayName("Removal Invalidates")
+    public void invalidation() throws DataAccessException {
+        CachingAuthDAO cache = new CachingAuthDAO(backing, 100, Duration.ofMinutes(1));
+        AuthData first = cache.addAuth(user);
+        AuthData second = cache.addAuth(user);
+        cache.removeKey(first.token());
+        Assertions.assertFalse(cache.findKey(first.token()), "Removed token should not be found");
+        Assertions.assertNull(cache.getKey(first.token()), "Removed token should not be returned");
+        Assertions.assertTrue(cache.findKey(second.token()), "Other tokens should survive a removal");
+
+        cache.deleteAuths();
+        Assertions.assertFalse(cache.findKey(second.token()), "Cleared token should not be found");
+        Assertions.assertEquals(0, cache.stats().size());
+    }
+
+    @Test
+    @DisplayName("Entries Expire")
+    public void expiry() throws DataAccessException, InterruptedException {
+        CachingAuthDAO cache = new CachingAuthDAO(backing, 100, Duration.ofMillis(20));
+        AuthData auth = cache.addAuth(user);
+        Thread.sleep(40);
+        backing.lookups = 0;
+        Assertions.assertEquals(auth, cache.getKey(auth.token()));
+        Assertions.assertEquals(1, backing.lookups, "Expired token should be looked up again");
+        Assertions.assertEquals(1, cache.stats().expirations());
+    }
+
+    @Test
+    @DisplayName("Cache Is Bounded")
+    public void bounded() throws DataAccessException {
+        CachingAuthDAO cache = new CachingAuthDAO(backing, 10, Duration.ofMinutes(1));
+        AuthData kept = cache.addAuth(user);
+        for (int i = 0; i < 30; i++) {
+            cache.addAuth(user);
+            Assertions.assertTrue(cache.findKey(kept.token()));
+        }
+        Assertions.assertTrue(cache.stats().size() <= 10, "Cache grew past its size");
+        Assertions.assertTrue(cache.stats().evictions() > 0);
+        backing.lookups = 0;
+        cache.getKey(kept.token());
+        Assertions.assertEquals(0, backing.lookups, "Most recently used token should not be evicted");
+    }
+}
@@ -0,0 +1,286 @@
+package dataaccess;
+
+import chess.ChessGame;
+import chess.ChessMove;
+import chess.ChessPosition;
+import chess.InvalidMoveException;
+import model.GameData;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+public class CachingGameDAOTests {
+
+    /**
+     * Keeps copies of games the way a database would, counting reads and writes.
+     */
+    private static final class StoredGameDAO implements GameDAO {
+        final Map<Integer, GameData> rows = new HashMap<>();
+        int reads;
+        int writes;
+        boolean failing;
+        int nextID = 1;
+        // Run once, after the next read has taken its copy of the row.
+        Runnable afterRead;
+        // Run once, as the next write begins and before it changes the row.
+        Runnable beforeWrite;
+
+        @Override
+        public synchronized void deleteGames() {
+            rows.clear();
+        }
+
+        @Override
+        public synchronized Integer createGame(String gameName) {
+            int id = nextID++;
+            rows.put(id, new GameData(id, null, null, gameName, new ChessGame()));
+            return id;
+        }
+
+        @Override
+        public synchronized GameData getGame(int gameID) {
+            reads++;
+            GameData data = rows.get(gameID);
+            GameData read = data == null ? null : new GameData(data.gameID(), data.whiteUsername(),
+                    data.blackUsername(), data.gameName(), new ChessGame(data.game()));
+            if (afterRead != null) {
+                Runnable hook = afterRead;
+                afterRead = null;
+                hook.run();
+            }
+            return read;
+        }
+
+        @Override
+        public synchronized void updatePlayer(int gameID, ChessGame.TeamColor color, String username) {
+            GameData data = rows.get(gameID);
+            rows.put(gameID, color == ChessGame.TeamColor.WHITE
+                    ? new GameData(gameID, username, data.blackUsername(), data.gameName(), data.game())
+                    : new GameData(gameID, data.whiteUsername(), username, data.gameName(), data.game()));
+        }
+
+        @Override
+        public synchronized ArrayList<GameData> getGamesList() {
+            ArrayList<GameData> list = new ArrayList<>();
+            for (int id : rows.keySet()) {
+                list.add(getGame(id));
+            }
+            return list;
+        }
+
+        @Override
+        public synchronized void updateGame(int id, ChessGame game) throws DataAccessException {
+            if (beforeWrite != null) {
+                Runnable hook = beforeWrite;
+                beforeWrite = null;
+                hook.run();
+            }
+            if (failing) {
+                throw new DataAccessException("could not update game");
+            }
+            writes++;
+            GameData data = rows.get(id);
+            rows.put(id, new GameData(id, data.whiteUsername(), data.blackUsername(), data.gameName(),
+                    new ChessGame(game)));
+        }
+
+        synchronized ChessGame stored(int id) {
+            return rows.get(id).game();
+        }
+    }
+
+    private StoredGameDAO backing;
+    private CachingGameDAO cache;
+
+    @BeforeEach
+    public void setUp() {
+        backing = new StoredGameDAO();
+        // Long enough that only the tests flush, unless they ask otherwise.
+        cache = new CachingGameDAO(backing, Duration.ofHours(1), Duration.ofHours(1));
+    }
+
+    @AfterEach
+    public void tearDown() {
+        cache.close();
+    }
+
+    private static void move(ChessGame game, int fromRow, int fromCol, int toRow, int toCol) throws InvalidMoveException {
+        game.makeMove(new ChessMove(ChessPosition.of(fromRow, fromCol), ChessPosition.of(toRow, toCol), null));
+    }
+
+    @Test
+    @DisplayName("Moves Are Written Behind")
+    public void writeBehind() throws DataAccessException, InvalidMoveException {
+        int id = cache.createGame("game");
+        GameData data = cache.getGame(id);
+        move(data.game(), 2, 5, 4, 5);
+        cache.updateGame(id, data.game());
+        move(data.game(), 7, 5, 5, 5);
+        cache.updateGame(id, data.game());
+
+        Assertions.assertEquals(0, backing.writes, "Moves should not be written on the request path");
+        Assertions.assertEquals(new ChessGame(), backing.stored(id), "Database should not have the moves yet");
+        Assertions.assertEquals(data.game(), cache.getGame(id).game(), "Cache should serve the latest moves");
+        Assertions.assertEquals(1, backing.reads, "Cached game should not be read again");
+        Assertions.assertEquals(1, cache.stats().pending());
+
+        Assertions.assertEquals(0, cache.flush());
+        Assertions.assertEquals(1, backing.writes, "Both moves should be written at once");
+        Assertions.assertEquals(data.game(), backing.stored(id));
+        Assertions.assertEquals(0, cache.stats().pending());
+        Assertions.assertEquals(0.5, cache.stats().hitRatio());
+    }
+
+    @Test
+    @DisplayName("Callers Get Their Own Copies")
+    public void isolation() throws DataAccessException, InvalidMoveException {
+        int id = cache.createGame("game");
+        GameData first = cache.getGame(id);
+        GameData second = cache.getGame(id);
+        Assertions.assertNotSame(first.game(), second.game());
+        move(first.game(), 2, 5, 4, 5);
+        Assertions.assertEquals(new ChessGame(), cache.getGame(id).game(), "Unsaved change should not be visible");
+        cache.updateGame(id, first.game());
+        move(first.game(), 7, 5, 5, 5);
+        Assertions.assertEquals(ChessGame.TeamColor.BLACK, cache.getGame(id).game().getTeamTurn(),
+                "Change after the update should not reach the cache");
+    }
+
+    @Test
+    @DisplayName("Close Writes Pending Moves")
+    public void durableOnClose() throws DataAccessException, InvalidMoveException {
+        int id = cache.createGame("game");
+        GameData data = cache.getGame(id);
+        move(data.game(), 2, 5, 4, 5);
+        cache.updateGame(id, data.game());
+        cache.close();
+        Assertions.assertEquals(data.game(), backing.stored(id), "Close should write pending moves");
+    }
+
+    @Test
+    @DisplayName("Failed Writes Are Retried")
+    public void retry() throws DataAccessException, InvalidMoveException {
+        int id = cache.createGame("game");
+        GameData data = cache.getGame(id);
+        move(data.game(), 2, 5, 4, 5);
+        cache.updateGame(id, data.game());
+        backing.failing = true;
+        Assertions.assertEquals(1, cache.flush());
+        Assertions.assertEquals(1, cache.stats().pending(), "Failed game should stay pending");
+        Assertions.assertEquals(1, cache.stats().flushFailures());
+        Assertions.assertEquals(1, cache.flush());
+        Assertions.assertEquals(2, cache.stats().flushFailures(), "Every failed write should be counted");
+        backing.failing = false;
+        Assertions.assertEquals(0, cache.flush());
+        Assertions.assertEquals(data.game(), backing.stored(id));
+    }
+
+    @Test
+    @DisplayName("Lists And Players Stay Current")
+    public void listsAndPlayers() throws DataAccessException, InvalidMoveException {
+        int id = cache.createGame("game");
+        GameData data = cache.getGame(id);
+        move(data.game(), 2, 5, 4, 5);
+        cache.updateGame(id, data.game());
+        cache.updatePlayer(id, ChessGame.TeamColor.WHITE, "p1");
+
+        GameData cached = cache.getGame(id);
+        Assertions.assertEquals("p1", cached.whiteUsername(), "Cache should see the new player");
+        Assertions.assertEquals(data.game(), cached.game(), "Player change should keep the unsaved move");
+        GameData listed = cache.getGamesList().get(0);
+        Assertions.assertEquals("p1", listed.whiteUsername());
+        Assertions.assertEquals(data.game(), listed.game(), "List should include the unsaved move");
+
+        cache.deleteGames();
+        Assertions.assertNull(cache.getGame(id));
+        Assertions.assertEquals(0, cache.stats().pending());
+    }
+
+    @Test
+    @DisplayName("Listing During A Write")
+    public void listDuringWrite() throws DataAccessException, InvalidMoveException {
+        int id = cache.createGame("game");
+        GameData data = cache.getGame(id);
+        move(data.game(), 2, 5, 4, 5);
+        cache.updateGame(id, data.game());
+        List<GameData> listed = new ArrayList<>();
+        backing.beforeWrite = () -> {
+            try {
+                listed.addAll(cache.getGamesList());
+            } catch (DataAccessException e) {
+                throw new IllegalStateException(e);
+            }
+        };
+        Assertions.assertEquals(0, cache.flush());
+        Assertions.assertEquals(1, listed.size());
+        Assertions.assertEquals(data.game(), listed.get(0).game(), "Game being written should list with its moves");
+        Assertions.assertEquals(0, cache.stats().pending());
+    }
+
+    @Test
+    @DisplayName("Move During A Write Stays Pending")
+    public void moveDuringWrite() throws DataAccessException, InvalidMoveException {
+        int id = cache.createGame("game");
+        GameData data = cache.getGame(id);
+        move(data.game(), 2, 5, 4, 5);
+        cache.updateGame(id, data.game());
+        ChessGame written = new ChessGame(data.game());
+        move(data.game(), 7, 5, 5, 5);
+        backing.beforeWrite = () -> {
+            try {
+                cache.updateGame(id, data.game());
+            } catch (DataAccessException e) {
+                throw new IllegalStateException(e);
+            }
+        };
+        Assertions.assertEquals(0, cache.flush());
+        Assertions.assertEquals(written, backing.stored(id));
+        Assertions.assertEquals(1, cache.stats().pending(), "Move made during the write should stay pending");
+        Assertions.assertEquals(0, cache.flush());
+        Assertions.assertEquals(data.game(), backing.stored(id));
+    }
+
+    @Test
+    @DisplayName("Player Change During A Load")
+    public void joinDuringLoad() throws DataAccessException {
+        int id = cache.createGame("game");
+        backing.afterRead = () -> {
+            try {
+                cache.updatePlayer(id, ChessGame.TeamColor.WHITE, "p1");
+            } catch (DataAccessException e) {
+                throw new IllegalStateException(e);
+            }
+        };
+        Assertions.assertNull(cache.getGame(id).whiteUsername(), "Load began before the player joined");
+        Assertions.assertEquals("p1", cache.getGame(id).whiteUsername(),
+                "Row read before the player joined should not be cached");
+        Assertions.assertEquals("p1", cache.getGame(id).whiteUsername());
+        Assertions.assertEquals(2, backing.reads, "Current row should be cached");
+    }
+
+    @Test
+    @DisplayName("Background Flush And Eviction")
+    public void background() throws DataAccessException, InvalidMoveException, InterruptedException {
+        cache.close();
+        cache = new CachingGameDAO(backing, Duration.ofMillis(10), Duration.ofMillis(10));
+        int id = cache.createGame("game");
+        GameData data = cache.getGame(id);
+        move(data.game(), 2, 5, 4, 5);
+        cache.updateGame(id, data.game());
+        for (int i = 0; i < 200 && (backing.writes == 0 || cache.stats().size() > 0); i++) {
+            Thread.sleep(10);
+        }
+        Assertions.assertEquals(data.game(), backing.stored(id), "Background flush should write the move");
+        Assertions.assertEquals(0, cache.stats().size(), "Idle written game should be dropped");
+        Assertions.assertTrue(cache.stats().maxFlushLagMillis() > 0);
+        Assertions.assertEquals(data.game(), cache.getGame(id).game(), "Dropped game should load from the database");
+    }
+}
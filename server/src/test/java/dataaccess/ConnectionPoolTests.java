@@ -0,0 +1,257 @@
+package dataaccess;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+public class ConnectionPoolTests {
+
+    /**
+     * Stands in for a physical statement, tracking whether it was closed, cleared, and the
+     * result sets it handed out.
+     */
+    private static final class FakeStatement {
+        final AtomicBoolean closed = new AtomicBoolean();
+        final AtomicBoolean cleared = new AtomicBoolean();
+        final List<AtomicBoolean> results = new ArrayList<>();
+        final PreparedStatement statement = (PreparedStatement) Proxy.newProxyInstance(
+                PreparedStatement.class.getClassLoader(), new Class<?>[]{PreparedStatement.class},
+                (proxy, method, args) -> switch (method.getName()) {
+                    case "close" -> {
+                        closed.set(true);
+                        yield null;
+                    }
+                    case "clearParameters" -> {
+                        cleared.set(true);
+                        yield null;
+                    }
+                    case "executeQuery" -> {
+                        AtomicBoolean resultClosed = new AtomicBoolean();
+                        results.add(resultClosed);
+                        yield Proxy.newProxyInstance(ResultSet.class.getClassLoader(), new Class<?>[]{ResultSet.class},
+                                (rsProxy, rsMethod, rsArgs) -> {
+                                    if (rsMethod.getName().equals("close")) {
+                                        resultClosed.set(true);
+                                    }
+                                    return rsMethod.getReturnType() == boolean.class ? false : null;
+                                });
+                    }
+                    case "executeUpdate" -> 1;
+                    default -> null;
+                });
+    }
+
+    /**
+     * Stands in for a physical connection, tracking whether it was closed and the statements
+     * prepared on it, and answering isValid as told.
+     */
+    private static final class FakeConnection {
+        final AtomicBoolean closed = new AtomicBoolean();
+        final AtomicBoolean valid = new AtomicBoolean(true);
+        final List<FakeStatement> prepared = new ArrayList<>();
+        final Connection connection = (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(),
+                new Class<?>[]{Connection.class}, (proxy, method, args) -> switch (method.getName()) {
+                    case "close" -> {
+                        closed.set(true);
+                        yield null;
+                    }
+                    case "isClosed" -> closed.get();
+                    case "isValid" -> valid.get();
+                    case "getAutoCommit" -> true;
+                    case "getCatalog" -> "chess";
+                    case "prepareStatement" -> {
+                        FakeStatement statement = new FakeStatement();
+                        prepared.add(statement);
+                        yield statement.statement;
+                    }
+                    default -> null;
+                });
+    }
+
+    private final List<FakeConnection> physical = new ArrayList<>();
+
+    private ConnectionPool pool(int maxSize, long borrowTimeoutMillis, long idleTimeoutMillis, long maxLifetimeMillis) {
+        return pool(maxSize, borrowTimeoutMillis, idleTimeoutMillis, maxLifetimeMillis, 16);
+    }
+
+    private ConnectionPool pool(int maxSize, long borrowTimeoutMillis, long idleTimeoutMillis, long maxLifetimeMillis,
+                                int statementCacheSize) {
+        return new ConnectionPool(() -> {
+            FakeConnection fake = new FakeConnection();
+            physical.add(fake);
+            return fake.connection;
+        }, maxSize, borrowTimeoutMillis, idleTimeoutMillis, maxLifetimeMillis, statementCacheSize);
+    }
+
+    @Test
+    @DisplayName("Closed Connections Are Reused")
+    public void reuse() throws SQLException {
+        try (ConnectionPool pool = pool(2, 1000, 60_000, 60_000)) {
+            for (int i = 0; i < 5; i++) {
+                try (Connection conn = pool.borrow()) {
+                    Assertions.assertEquals("chess", conn.getCatalog());
+                }
+            }
+            Assertions.assertEquals(1, physical.size(), "Sequential borrows should share one connection");
+            Assertions.assertFalse(physical.get(0).closed.get(), "Pooled connection should stay open");
+            ConnectionPool.Stats stats = pool.stats();
+            Assertions.assertEquals(5, stats.borrowed());
+            Assertions.assertEquals(0, stats.active());
+            Assertions.assertEquals(1, stats.idle());
+        }
+        Assertions.assertTrue(physical.get(0).closed.get(), "Closing the pool should close idle connections");
+    }
+
+    @Test
+    @DisplayName("Returned Connection Cannot Be Used")
+    public void useAfterClose() throws SQLException {
+        try (ConnectionPool pool = pool(1, 1000, 60_000, 60_000)) {
+            Connection conn = pool.borrow();
+            conn.close();
+            conn.close();
+            Assertions.assertTrue(conn.isClosed());
+            Assertions.assertThrows(SQLException.class, conn::getCatalog);
+            Assertions.assertEquals(1, pool.stats().idle(), "Closing twice should return the connection once");
+        }
+    }
+
+    @Test
+    @DisplayName("Pool Is Bounded")
+    public void bounded() throws SQLException {
+        try (ConnectionPool pool = pool(2, 50, 60_000, 60_000)) {
+            Connection first = pool.borrow();
+            Connection second = pool.borrow();
+            Assertions.assertEquals(2, pool.stats().active());
+            Assertions.assertThrows(SQLTransientConnectionException.class, pool::borrow);
+            Assertions.assertEquals(1, pool.stats().timeouts());
+            Assertions.assertEquals(2, physical.size(), "Pool opened more connections than its size");
+
+            Thread returner = new Thread(() -> {
+                try {
+                    Thread.sleep(10);
+                    first.close();
+                } catch (InterruptedException | SQLException e) {
+                    throw new RuntimeException(e);
+                }
+            });
+            returner.start();
+            try (Connection third = pool.borrow()) {
+                Assertions.assertNotNull(third);
+            }
+            second.close();
+            Assertions.assertEquals(2, physical.size(), "Waiting borrower should get the returned connection");
+        }
+    }
+
+    @Test
+    @DisplayName("Invalid Connections Are Replaced")
+    public void validation() throws SQLException, InterruptedException {
+        try (ConnectionPool pool = pool(1, 1000, 60_000, 60_000)) {
+            pool.borrow().close();
+            physical.get(0).valid.set(false);
+            Thread.sleep(600);
+            try (Connection conn = pool.borrow()) {
+                Assertions.assertNotNull(conn);
+            }
+            Assertions.assertEquals(2, physical.size(), "Invalid connection should have been replaced");
+            Assertions.assertTrue(physical.get(0).closed.get(), "Invalid connection should be closed");
+            Assertions.assertEquals(1, pool.stats().retired());
+        }
+    }
+
+    @Test
+    @DisplayName("Idle And Old Connections Are Retired")
+    public void eviction() throws SQLException, InterruptedException {
+        try (ConnectionPool pool = pool(2, 1000, 20, 60_000)) {
+            pool.borrow().close();
+            Thread.sleep(30);
+            pool.evict();
+            Assertions.assertEquals(0, pool.stats().idle(), "Idle connection should have been evicted");
+            Assertions.assertTrue(physical.get(0).closed.get());
+        }
+        try (ConnectionPool pool = pool(2, 1000, 60_000, 20)) {
+            Connection conn = pool.borrow();
+            Thread.sleep(30);
+            conn.close();
+            Assertions.assertEquals(0, pool.stats().idle(), "Connection past its lifetime should not go back");
+            Assertions.assertEquals(1, pool.stats().retired());
+        }
+    }
+
+    @Test
+    @DisplayName("Statements Are Reused Across Loans")
+    public void statementReuse() throws SQLException {
+        try (ConnectionPool pool = pool(1, 1000, 60_000, 60_000)) {
+            for (int i = 0; i < 3; i++) {
+                try (Connection conn = pool.borrow();
+                     PreparedStatement ps = conn.prepareStatement("SELECT token FROM auths WHERE token=?")) {
+                    ps.setString(1, "token" + i);
+                    try (ResultSet rs = ps.executeQuery()) {
+                        Assertions.assertFalse(rs.next());
+                    }
+                    Assertions.assertSame(conn, ps.getConnection(), "Statement should report the pooled connection");
+                }
+            }
+            FakeConnection fake = physical.get(0);
+            Assertions.assertEquals(1, fake.prepared.size(), "Same SQL should be prepared once");
+            FakeStatement statement = fake.prepared.get(0);
+            Assertions.assertFalse(statement.closed.get(), "Cached statement should stay open");
+            Assertions.assertTrue(statement.cleared.get(), "Cached statement should be cleared for reuse");
+            Assertions.assertEquals(2, pool.stats().statementHits());
+            Assertions.assertEquals(1, pool.stats().statementMisses());
+        }
+    }
+
+    @Test
+    @DisplayName("Leaked Statements Are Cleaned Up")
+    public void leakedStatements() throws SQLException {
+        try (ConnectionPool pool = pool(1, 1000, 60_000, 60_000)) {
+            PreparedStatement cached;
+            PreparedStatement duplicate;
+            try (Connection conn = pool.borrow()) {
+                cached = conn.prepareStatement("SELECT * FROM games WHERE gameID=?");
+                cached.executeQuery();
+                duplicate = conn.prepareStatement("SELECT * FROM games WHERE gameID=?");
+                duplicate.executeQuery();
+            }
+            Assertions.assertTrue(cached.isClosed(), "Leaked statement should be closed with its connection");
+            Assertions.assertTrue(duplicate.isClosed(), "Leaked statement should be closed with its connection");
+            Assertions.assertThrows(SQLException.class, cached::executeQuery);
+
+            List<FakeStatement> prepared = physical.get(0).prepared;
+            Assertions.assertEquals(2, prepared.size(), "Statement in use should not be handed out twice");
+            Assertions.assertFalse(prepared.get(0).closed.get(), "Cached statement should go back to the cache");
+            Assertions.assertTrue(prepared.get(1).closed.get(), "Uncached duplicate should be closed");
+            for (FakeStatement statement : prepared) {
+                Assertions.assertTrue(statement.results.get(0).get(), "Leaked result set should be closed");
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("Statement Cache Is Bounded")
+    public void statementCacheBound() throws SQLException {
+        try (ConnectionPool pool = pool(1, 1000, 60_000, 60_000, 2)) {
+            for (String sql : new String[]{"TRUNCATE users", "TRUNCATE auths", "TRUNCATE users", "TRUNCATE games"}) {
+                try (Connection conn = pool.borrow(); PreparedStatement ps = conn.prepareStatement(sql)) {
+                    ps.executeUpdate();
+                }
+            }
+            List<FakeStatement> prepared = physical.get(0).prepared;
+            Assertions.assertEquals(3, prepared.size());
+            Assertions.assertTrue(prepared.get(1).closed.get(), "Least recently used statement should be closed");
+            Assertions.assertFalse(prepared.get(0).closed.get(), "Recently used statement should stay cached");
+            Assertions.assertFalse(prepared.get(2).closed.get(), "Newest statement should stay cached");
+        }
+    }
+}
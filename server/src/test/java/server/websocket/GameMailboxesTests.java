@@ -0,0 +1,95 @@
+package server.websocket;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+public class GameMailboxesTests {
+
+    @Test
+    @DisplayName("Commands For A Game Run In Order")
+    public void ordered() {
+        List<Integer> seen = new ArrayList<>();
+        try (GameMailboxes mailboxes = new GameMailboxes()) {
+            for (int i = 0; i < 1000; i++) {
+                int command = i;
+                mailboxes.submit(7, () -> seen.add(command));
+            }
+        }
+        Assertions.assertEquals(1000, seen.size());
+        for (int i = 0; i < 1000; i++) {
+            Assertions.assertEquals(i, seen.get(i), "Commands ran out of order");
+        }
+    }
+
+    @Test
+    @DisplayName("No Lost Updates From Concurrent Submitters")
+    public void serial() throws InterruptedException {
+        int[] counters = new int[4];
+        try (GameMailboxes mailboxes = new GameMailboxes()) {
+            List<Thread> submitters = new ArrayList<>();
+            for (int t = 0; t < 8; t++) {
+                submitters.add(Thread.ofPlatform().start(() -> {
+                    for (int i = 0; i < 1000; i++) {
+                        int game = i % counters.length;
+                        // A read-modify-write with a pause, as a move does with its game.
+                        mailboxes.submit(game, () -> {
+                            int value = counters[game];
+                            Thread.onSpinWait();
+                            counters[game] = value + 1;
+                        });
+                    }
+                }));
+            }
+            for (Thread submitter : submitters) {
+                submitter.join();
+            }
+        }
+        for (int counter : counters) {
+            Assertions.assertEquals(2000, counter, "An update was lost");
+        }
+    }
+
+    @Test
+    @DisplayName("Games Run In Parallel")
+    public void parallel() throws InterruptedException {
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch otherRan = new CountDownLatch(1);
+        try (GameMailboxes mailboxes = new GameMailboxes()) {
+            mailboxes.submit(1, () -> {
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            });
+            mailboxes.submit(2, otherRan::countDown);
+            Assertions.assertTrue(otherRan.await(5, TimeUnit.SECONDS), "A busy game should not hold up another");
+            Assertions.assertTrue(mailboxes.activeGames() >= 1);
+            release.countDown();
+        }
+    }
+
+    @Test
+    @DisplayName("Mailboxes Are Removed And Failures Contained")
+    public void cleanup() throws InterruptedException {
+        List<String> seen = new ArrayList<>();
+        GameMailboxes mailboxes = new GameMailboxes();
+        mailboxes.submit(3, () -> {
+            throw new IllegalStateException("command failed on purpose");
+        });
+        mailboxes.submit(3, () -> seen.add("after failure"));
+        for (int i = 0; i < 500 && mailboxes.activeGames() > 0; i++) {
+            Thread.sleep(10);
+        }
+        Assertions.assertEquals(0, mailboxes.activeGames(), "Drained mailbox should be removed");
+        mailboxes.close();
+        Assertions.assertEquals(List.of("after failure"), seen, "A failed command should not stop the game");
+        Assertions.assertEquals(1, mailboxes.failures());
+    }
+}
@@ -1,25 +1,90 @@
 package chess;
 
+import com.google.gson.TypeAdapter;
+import com.google.gson.annotations.JsonAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+
+import java.io.IOException;
 import java.util.Arrays;
-import java.util.Objects;
 
 /**
  * A chessboard that can hold and rearrange chess pieces.
  * <p>
+ * Internally the board is a set of bitboards: one 64-bit set per colored piece
+ * kind plus an occupancy set per team. Square 0 is a1 (row 1, column 1) and
+ * square 63 is h8. {@link #getPiece} and {@link #addPiece} are views over those sets.
+ * <p>
+ * Alongside the pieces the board keeps its Zobrist key and its piece-square evaluation,
+ * both updated as each piece is put down or picked up.
+ * <p>
+ * In JSON the board keeps the shape it had as an array of pieces, so games saved before the
+ * bitboards still load.
+ * <p>
  * Note: You can add to this class, but you may not alter
  * signature of the existing methods.
  */
+@JsonAdapter(ChessBoard.Adapter.class)
 public class ChessBoard {
 
-    ChessPiece[][] squares = new ChessPiece[8][8];
+    static final int PIECE_KINDS = 12;
+
+    private static final ChessPiece.PieceType[] BACK_RANK = {
+            ChessPiece.PieceType.ROOK, ChessPiece.PieceType.KNIGHT, ChessPiece.PieceType.BISHOP,
+            ChessPiece.PieceType.QUEEN, ChessPiece.PieceType.KING, ChessPiece.PieceType.BISHOP,
+            ChessPiece.PieceType.KNIGHT, ChessPiece.PieceType.ROOK
+    };
+
+    private static final ChessPiece[] PIECES = new ChessPiece[PIECE_KINDS];
+
+    static {
+        for (ChessGame.TeamColor color : ChessGame.TeamColor.values()) {
+            for (ChessPiece.PieceType type : ChessPiece.PieceType.values()) {
+                PIECES[pieceIndex(color, type)] = ChessPiece.of(color, type);
+            }
+        }
+    }
+
+    long[] pieces = new long[PIECE_KINDS];
+    long whitePieces;
+    long blackPieces;
+    transient long zobristKey;
+    transient int middlegame;
+    transient int endgame;
+    transient int phase;
+    private transient int version;
+
     public ChessBoard() {
-        
+
     }
 
     public ChessBoard(ChessBoard board) {
-        for (int i=0; i < squares.length; i++) {
-            squares[i] = Arrays.copyOf(board.squares[i], board.squares[i].length);
-        }
+        pieces = board.pieces.clone();
+        whitePieces = board.whitePieces;
+        blackPieces = board.blackPieces;
+        zobristKey = board.zobristKey;
+        middlegame = board.middlegame;
+        endgame = board.endgame;
+        phase = board.phase;
+    }
+
+    /**
+     * @return the bitboard index (0-63) of a position
+     */
+    static int square(ChessPosition position) {
+        return (position.getRow() - 1) * 8 + position.getColumn() - 1;
+    }
+
+    /**
+     * @return the index into {@link #pieces} for a colored piece kind; white kinds come first
+     */
+    static int pieceIndex(ChessGame.TeamColor color, ChessPiece.PieceType type) {
+        return color.ordinal() * 6 + type.ordinal();
+    }
+
+    static ChessPosition position(int square) {
+        return ChessPosition.of(square);
     }
 
     /**
@@ -29,7 +94,11 @@ public class ChessBoard {
      * @param piece    the piece to add
      */
     public void addPiece(ChessPosition position, ChessPiece piece) {
-        squares[position.getRow()-1][position.getColumn()-1] = piece;
+        int square = square(position);
+        removePiece(square);
+        if (piece != null) {
+            putPiece(square, pieceIndex(piece.getTeamColor(), piece.getPieceType()));
+        }
     }
 
     /**
@@ -40,7 +109,163 @@ public class ChessBoard {
      * position
      */
     public ChessPiece getPiece(ChessPosition position) {
-        return squares[position.getRow()-1][position.getColumn()-1];
+        int index = pieceAt(square(position));
+        return index < 0 ? null : PIECES[index];
+    }
+
+    /**
+     * Gets a chess piece by bitboard square, without going through a position
+     *
+     * @param square the square to look at, 0 = a1 through 63 = h8
+     * @return Either the piece on the square, or null if the square is empty
+     */
+    public ChessPiece getPiece(int square) {
+        int index = pieceAt(square);
+        return index < 0 ? null : PIECES[index];
+    }
+
+    /**
+     * @return the piece index on a square, or -1 if the square is empty
+     */
+    int pieceAt(int square) {
+        long bit = 1L << square;
+        int first;
+        if ((whitePieces & bit) != 0) {
+            first = 0;
+        } else if ((blackPieces & bit) != 0) {
+            first = 6;
+        } else {
+            return -1;
+        }
+        for (int index = first; index < first + 6; index++) {
+            if ((pieces[index] & bit) != 0) {
+                return index;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * @return a counter that changes every time a piece is added or removed, so cached
+     * analysis of the board can tell whether it is stale
+     */
+    int getVersion() {
+        return version;
+    }
+
+    /**
+     * @return the Zobrist hash of the pieces on this board, kept up to date as pieces are
+     * added and removed
+     */
+    public long getZobristKey() {
+        return zobristKey;
+    }
+
+    /**
+     * @return the tapered piece-square evaluation in centipawns from white's point of view:
+     * positive favors white. It is kept up to date as pieces move, so this costs a blend of
+     * two sums rather than a pass over the board.
+     */
+    public int evaluate() {
+        return taper(middlegame, endgame, phase);
+    }
+
+    /**
+     * @return the same value as {@link #evaluate()}, recomputed by visiting every square
+     */
+    public int evaluateFromScratch() {
+        int middlegameSum = 0;
+        int endgameSum = 0;
+        int phaseSum = 0;
+        for (int square = 0; square < 64; square++) {
+            int index = pieceAt(square);
+            if (index >= 0) {
+                middlegameSum += PieceSquareTables.MIDDLEGAME[index][square];
+                endgameSum += PieceSquareTables.ENDGAME[index][square];
+                phaseSum += PieceSquareTables.PHASE[index];
+            }
+        }
+        return taper(middlegameSum, endgameSum, phaseSum);
+    }
+
+    /**
+     * Blends the middlegame and endgame scores by how much material is left: with every piece
+     * on the board the middlegame score counts fully, with only kings and pawns the endgame one.
+     */
+    private static int taper(int middlegame, int endgame, int phase) {
+        int weight = Math.min(phase, PieceSquareTables.MAX_PHASE);
+        return (middlegame * weight + endgame * (PieceSquareTables.MAX_PHASE - weight)) / PieceSquareTables.MAX_PHASE;
+    }
+
+    void putPiece(int square, int index) {
+        version++;
+        long bit = 1L << square;
+        pieces[index] |= bit;
+        zobristKey ^= Zobrist.PIECE_SQUARE[index][square];
+        middlegame += PieceSquareTables.MIDDLEGAME[index][square];
+        endgame += PieceSquareTables.ENDGAME[index][square];
+        phase += PieceSquareTables.PHASE[index];
+        if (index < 6) {
+            whitePieces |= bit;
+        } else {
+            blackPieces |= bit;
+        }
+    }
+
+    void removePiece(int square) {
+        int index = pieceAt(square);
+        if (index >= 0) {
+            version++;
+            long bit = 1L << square;
+            pieces[index] &= ~bit;
+            zobristKey ^= Zobrist.PIECE_SQUARE[index][square];
+            middlegame -= PieceSquareTables.MIDDLEGAME[index][square];
+            endgame -= PieceSquareTables.ENDGAME[index][square];
+            phase -= PieceSquareTables.PHASE[index];
+            whitePieces &= ~bit;
+            blackPieces &= ~bit;
+        }
+    }
+
+    long pieces(ChessGame.TeamColor color, ChessPiece.PieceType type) {
+        return pieces[pieceIndex(color, type)];
+    }
+
+    /**
+     * @return the squares holding one colored piece kind, as a bitboard (bit 0 = a1, bit 63 = h8)
+     */
+    public long getPieces(ChessGame.TeamColor color, ChessPiece.PieceType type) {
+        return pieces(color, type);
+    }
+
+    long occupancy(ChessGame.TeamColor color) {
+        return color == ChessGame.TeamColor.WHITE ? whitePieces : blackPieces;
+    }
+
+    long occupied() {
+        return whitePieces | blackPieces;
+    }
+
+    /**
+     * @return true if any piece of team {@code by} attacks the given square
+     */
+    boolean isAttacked(int square, ChessGame.TeamColor by) {
+        return attackers(square, by, occupied()) != 0;
+    }
+
+    /**
+     * @return the pieces of team {@code by} that attack the given square, with sliders
+     * blocked by {@code occupied} rather than by the board's own occupancy
+     */
+    long attackers(int square, ChessGame.TeamColor by, long occupied) {
+        long queens = pieces(by, ChessPiece.PieceType.QUEEN);
+        ChessGame.TeamColor defender = by == ChessGame.TeamColor.WHITE ? ChessGame.TeamColor.BLACK
+                : ChessGame.TeamColor.WHITE;
+        return (Bitboards.PAWN_ATTACKS[defender.ordinal()][square] & pieces(by, ChessPiece.PieceType.PAWN))
+                | (Bitboards.KNIGHT_ATTACKS[square] & pieces(by, ChessPiece.PieceType.KNIGHT))
+                | (Bitboards.KING_ATTACKS[square] & pieces(by, ChessPiece.PieceType.KING))
+                | (Bitboards.rookAttacks(square, occupied) & (pieces(by, ChessPiece.PieceType.ROOK) | queens))
+                | (Bitboards.bishopAttacks(square, occupied) & (pieces(by, ChessPiece.PieceType.BISHOP) | queens));
     }
 
     /**
@@ -48,39 +273,27 @@ public class ChessBoard {
      * (How the game of chess normally starts)
      */
     public void resetBoard() {
-        squares = new ChessPiece[8][8];
-        squares[0][0] = new ChessPiece(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.ROOK);
-        squares[0][1] = new ChessPiece(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.KNIGHT);
-        squares[0][2] = new ChessPiece(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.BISHOP);
-        squares[0][3] = new ChessPiece(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.QUEEN);
-        squares[0][4] = new ChessPiece(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.KING);
-        squares[0][5] = new ChessPiece(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.BISHOP);
-        squares[0][6] = new ChessPiece(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.KNIGHT);
-        squares[0][7] = new ChessPiece(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.ROOK);
-        squares[1][0] = new ChessPiece(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.PAWN);
-        squares[1][1] = new ChessPiece(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.PAWN);
-        squares[1][2] = new ChessPiece(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.PAWN);
-        squares[1][3] = new ChessPiece(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.PAWN);
-        squares[1][4] = new ChessPiece(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.PAWN);
-        squares[1][5] = new ChessPiece(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.PAWN);
-        squares[1][6] = new ChessPiece(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.PAWN);
-        squares[1][7] = new ChessPiece(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.PAWN);
-        squares[6][0] = new ChessPiece(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.PAWN);
-        squares[6][1] = new ChessPiece(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.PAWN);
-        squares[6][2] = new ChessPiece(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.PAWN);
-        squares[6][3] = new ChessPiece(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.PAWN);
-        squares[6][4] = new ChessPiece(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.PAWN);
-        squares[6][5] = new ChessPiece(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.PAWN);
-        squares[6][6] = new ChessPiece(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.PAWN);
-        squares[6][7] = new ChessPiece(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.PAWN);
-        squares[7][0] = new ChessPiece(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.ROOK);
-        squares[7][1] = new ChessPiece(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.KNIGHT);
-        squares[7][2] = new ChessPiece(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.BISHOP);
-        squares[7][3] = new ChessPiece(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.QUEEN);
-        squares[7][4] = new ChessPiece(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.KING);
-        squares[7][5] = new ChessPiece(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.BISHOP);
-        squares[7][6] = new ChessPiece(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.KNIGHT);
-        squares[7][7] = new ChessPiece(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.ROOK);
+        clear();
+        for (int col = 0; col < 8; col++) {
+            putPiece(col, pieceIndex(ChessGame.TeamColor.WHITE, BACK_RANK[col]));
+            putPiece(8 + col, pieceIndex(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.PAWN));
+            putPiece(48 + col, pieceIndex(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.PAWN));
+            putPiece(56 + col, pieceIndex(ChessGame.TeamColor.BLACK, BACK_RANK[col]));
+        }
+    }
+
+    /**
+     * Takes every piece off the board.
+     */
+    void clear() {
+        version++;
+        Arrays.fill(pieces, 0L);
+        whitePieces = 0L;
+        blackPieces = 0L;
+        zobristKey = 0L;
+        middlegame = 0;
+        endgame = 0;
+        phase = 0;
     }
 
     @Override
@@ -89,11 +302,90 @@ public class ChessBoard {
             return false;
         }
         ChessBoard that = (ChessBoard) o;
-        return Objects.deepEquals(squares, that.squares);
+        return zobristKey == that.zobristKey && Arrays.equals(pieces, that.pieces);
     }
 
     @Override
     public int hashCode() {
-        return Arrays.deepHashCode(squares);
+        return Long.hashCode(zobristKey);
+    }
+
+    /**
+     * Writes the {@code {"squares":[[..]]}} shape of the original array board: eight rows of
+     * eight squares starting from a1, with null for an empty square. Boards are read back a
+     * piece at a time, so the Zobrist key and evaluation are recomputed rather than trusted.
+     * Boards saved as bitboards, under {@code "pieces"}, are read as well.
+     */
+    static final class Adapter extends TypeAdapter<ChessBoard> {
+
+        private static final ChessPiece.Adapter PIECE = new ChessPiece.Adapter();
+
+        @Override
+        public void write(JsonWriter out, ChessBoard board) throws IOException {
+            out.beginObject().name("squares").beginArray();
+            for (int row = 0; row < 8; row++) {
+                out.beginArray();
+                for (int col = 0; col < 8; col++) {
+                    ChessPiece piece = board.getPiece(row * 8 + col);
+                    if (piece == null) {
+                        out.nullValue();
+                    } else {
+                        PIECE.write(out, piece);
+                    }
+                }
+                out.endArray();
+            }
+            out.endArray().endObject();
+        }
+
+        @Override
+        public ChessBoard read(JsonReader in) throws IOException {
+            ChessBoard board = new ChessBoard();
+            in.beginObject();
+            while (in.hasNext()) {
+                switch (in.nextName()) {
+                    case "squares" -> readSquares(in, board);
+                    case "pieces" -> readBitboards(in, board);
+                    default -> in.skipValue();
+                }
+            }
+            in.endObject();
+            return board;
+        }
+
+        private static void readSquares(JsonReader in, ChessBoard board) throws IOException {
+            in.beginArray();
+            for (int row = 0; in.hasNext(); row++) {
+                in.beginArray();
+                for (int col = 0; in.hasNext(); col++) {
+                    if (row >= 8 || col >= 8) {
+                        throw new IOException("Chess board is larger than 8x8");
+                    }
+                    if (in.peek() == JsonToken.NULL) {
+                        in.nextNull();
+                    } else {
+                        ChessPiece piece = PIECE.read(in);
+                        board.putPiece(row * 8 + col, pieceIndex(piece.getTeamColor(), piece.getPieceType()));
+                    }
+                }
+                in.endArray();
+            }
+            in.endArray();
+        }
+
+        private static void readBitboards(JsonReader in, ChessBoard board) throws IOException {
+            in.beginArray();
+            for (int index = 0; in.hasNext(); index++) {
+                if (index >= PIECE_KINDS) {
+                    throw new IOException("Chess board has too many piece kinds");
+                }
+                for (long set = in.nextLong(); set != 0; set &= set - 1) {
+                    int square = Long.numberOfTrailingZeros(set);
+                    board.removePiece(square);
+                    board.putPiece(square, index);
+                }
+            }
+            in.endArray();
+        }
     }
 }
@@ -1,7 +1,21 @@
 package chess;
 
+import com.google.gson.Gson;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.TypeAdapter;
+import com.google.gson.TypeAdapterFactory;
+import com.google.gson.annotations.JsonAdapter;
+import com.google.gson.reflect.TypeToken;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
+
+import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
+import java.util.List;
 import java.util.Objects;
 
 /**
@@ -10,6 +24,7 @@ import java.util.Objects;
  * Note: You can add to this class, but you may not alter
  * signature of the existing methods.
  */
+@JsonAdapter(ChessGame.Adapter.class)
 public class ChessGame {
 
     private ChessBoard currentBoard;
@@ -17,6 +32,52 @@ public class ChessGame {
     public boolean playing;
     public boolean whiteCheck;
     public boolean blackCheck;
+    /** White may still castle kingside. */
+    static final int WHITE_KINGSIDE = 1;
+    /** White may still castle queenside. */
+    static final int WHITE_QUEENSIDE = 2;
+    /** Black may still castle kingside. */
+    static final int BLACK_KINGSIDE = 4;
+    /** Black may still castle queenside. */
+    static final int BLACK_QUEENSIDE = 8;
+    // FEN letters in piece index order: white king through pawn, then black.
+    private static final String FEN_PIECES = "KQBNRPkqbnrp";
+    // Castling rights each square keeps when a move starts or ends there: moving a king or a
+    // rook, or capturing a rook on its home square, gives up the matching rights for good.
+    private static final int[] CASTLING_KEPT = new int[64];
+
+    static {
+        Arrays.fill(CASTLING_KEPT, 15);
+        CASTLING_KEPT[0] = 15 & ~WHITE_QUEENSIDE;
+        CASTLING_KEPT[4] = 15 & ~(WHITE_KINGSIDE | WHITE_QUEENSIDE);
+        CASTLING_KEPT[7] = 15 & ~WHITE_KINGSIDE;
+        CASTLING_KEPT[56] = 15 & ~BLACK_QUEENSIDE;
+        CASTLING_KEPT[60] = 15 & ~(BLACK_KINGSIDE | BLACK_QUEENSIDE);
+        CASTLING_KEPT[63] = 15 & ~BLACK_KINGSIDE;
+    }
+
+    // Castling rights as bits, and the square a pawn that just moved two squares passed over,
+    // or -1. The square is only kept while an enemy pawn stands ready to capture onto it, so
+    // positions that differ only by a capture nobody can make still compare and hash equal.
+    private int castlingRights;
+    private int enPassant = -1;
+    // Moves since the last capture or pawn move, and the keys of the positions before each of
+    // them, oldest first. Only positions since that move can ever repeat, so makeMove drops
+    // the rest; doMove keeps them so that a search can take its moves back. The keys are not
+    // serialized as they are; the adapter saves just the ones that can still repeat.
+    private int halfmoveClock;
+    private int fullmoveNumber = 1;
+    private transient long[] history = new long[16];
+    private transient int historyCount;
+    private final transient MoveGenerator[] generators = new MoveGenerator[2];
+    // Undo records packed into longs: from square (bits 0-5), to square (6-11), moved piece (12-15),
+    // captured piece + 1 (16-19), then previous turn, whiteCheck, blackCheck and playing (20-23),
+    // previous castling rights (24-27), previous en passant square + 1 (28-34), whether the
+    // move captured en passant (35) and the previous halfmove clock (36-51).
+    private transient long[] undoStack = new long[32];
+    private transient int undoCount;
+    // Scratch list for one piece's moves; a single piece never has more than 32.
+    private final transient int[] pieceMoves = new int[32];
 
     public ChessGame() {
         this.currentBoard = new ChessBoard();
@@ -25,6 +86,25 @@ public class ChessGame {
         this.playing = true;
         this.whiteCheck = false;
         this.blackCheck = false;
+        this.castlingRights = WHITE_KINGSIDE | WHITE_QUEENSIDE | BLACK_KINGSIDE | BLACK_QUEENSIDE;
+    }
+
+    /**
+     * Copies a game's position, turn and status. The copy starts with no moves to undo, so
+     * it can be searched on another thread without touching the original.
+     */
+    public ChessGame(ChessGame game) {
+        this.currentBoard = new ChessBoard(game.currentBoard);
+        this.teamTurn = game.teamTurn;
+        this.playing = game.playing;
+        this.whiteCheck = game.whiteCheck;
+        this.blackCheck = game.blackCheck;
+        this.castlingRights = game.castlingRights;
+        this.enPassant = game.enPassant;
+        this.halfmoveClock = game.halfmoveClock;
+        this.fullmoveNumber = game.fullmoveNumber;
+        this.history = Arrays.copyOf(game.history, Math.max(16, game.historyCount));
+        this.historyCount = game.historyCount;
     }
 
     public void endGame() {playing = false;}
@@ -45,6 +125,132 @@ public class ChessGame {
         teamTurn = team;
     }
 
+    /**
+     * @return the Zobrist hash of the current position, including which team is to move, the
+     * castling rights and any en passant capture. Equal positions always have equal keys, so
+     * the key can stand in for the position in caches and repetition checks.
+     */
+    public long getPositionKey() {
+        long key = currentBoard.getZobristKey() ^ Zobrist.CASTLING[castlingRights];
+        if (enPassant >= 0) {
+            key ^= Zobrist.EN_PASSANT[enPassant & 7];
+        }
+        return teamTurn == TeamColor.BLACK ? key ^ Zobrist.BLACK_TO_MOVE : key;
+    }
+
+    /**
+     * @return the castling rights still held, as a combination of {@link #WHITE_KINGSIDE},
+     * {@link #WHITE_QUEENSIDE}, {@link #BLACK_KINGSIDE} and {@link #BLACK_QUEENSIDE}
+     */
+    int getCastlingRights() {
+        return castlingRights;
+    }
+
+    /**
+     * @return the square a pawn may capture onto en passant this turn, or -1 if none
+     */
+    int getEnPassantSquare() {
+        return enPassant;
+    }
+
+    /**
+     * @return the number of moves made since the last capture or pawn move
+     */
+    public int getHalfmoveClock() {
+        return halfmoveClock;
+    }
+
+    /**
+     * @return the number of the current move, starting at 1 and counting up after each of
+     * black's moves
+     */
+    public int getFullmoveNumber() {
+        return fullmoveNumber;
+    }
+
+    /**
+     * @return true if the current position has stood twice before with the same team to move,
+     * castling rights and en passant capture
+     */
+    public boolean isThreefoldRepetition() {
+        return repetitions(2) >= 2;
+    }
+
+    /**
+     * @return true if the current position has stood at least once before. A search can
+     * score such a position as a draw, since whoever repeated it once can repeat it again.
+     */
+    public boolean isRepeated() {
+        return repetitions(1) >= 1;
+    }
+
+    /**
+     * @return true if fifty moves by each team have gone by without a capture or pawn move
+     */
+    public boolean isFiftyMoveRule() {
+        return halfmoveClock >= 100;
+    }
+
+    /**
+     * @return how many earlier positions the current one could still repeat, all since the
+     * last capture or pawn move
+     */
+    int repetitionWindow() {
+        return Math.min(halfmoveClock, historyCount);
+    }
+
+    /**
+     * @return the key of one of the positions in the {@link #repetitionWindow()}, oldest first
+     */
+    long windowKey(int index) {
+        return history[historyCount - repetitionWindow() + index];
+    }
+
+    /**
+     * Restores everything about the game its board does not hold, as saved by
+     * {@link GameCodec}. There is nothing to undo afterwards.
+     *
+     * @param keys the keys of the positions in the repetition window, oldest first
+     */
+    void restoreState(TeamColor turn, boolean playing, boolean whiteCheck, boolean blackCheck, int castlingRights,
+                      int enPassant, int halfmoveClock, int fullmoveNumber, long[] keys) {
+        this.teamTurn = turn;
+        this.playing = playing;
+        this.whiteCheck = whiteCheck;
+        this.blackCheck = blackCheck;
+        this.castlingRights = castlingRights;
+        this.enPassant = enPassant;
+        this.halfmoveClock = halfmoveClock;
+        this.fullmoveNumber = fullmoveNumber;
+        restoreHistory(keys);
+        this.undoCount = 0;
+    }
+
+    /**
+     * Replaces the record of earlier positions with the keys of the positions in the
+     * repetition window, oldest first.
+     */
+    private void restoreHistory(long[] keys) {
+        this.history = Arrays.copyOf(keys, Math.max(16, keys.length));
+        this.historyCount = keys.length;
+    }
+
+    /**
+     * Counts earlier occurrences of the current position, looking back only as far as the
+     * last capture or pawn move, and only at positions with the same team to move.
+     */
+    private int repetitions(int enough) {
+        long key = getPositionKey();
+        int oldest = historyCount - repetitionWindow();
+        int seen = 0;
+        for (int i = historyCount - 2; i >= oldest && seen < enough; i -= 2) {
+            if (history[i] == key) {
+                seen++;
+            }
+        }
+        return seen;
+    }
+
     /**
      * Enum identifying the 2 possible teams in a chess game
      */
@@ -65,26 +271,52 @@ public class ChessGame {
         if (piece == null) {
             return null;
         }
-        Collection<ChessMove> moves = piece.pieceMoves(currentBoard, startPosition);
-        Collection<ChessMove> toRemove = new ArrayList<>();
-        for (ChessMove move : moves) {
-            ChessBoard testBoard = new ChessBoard(currentBoard);
-            testBoard.addPiece(move.getEndPosition(), piece);
-            testBoard.addPiece(move.getStartPosition(), null);
-            if (isMoveIntoCheck(piece.getTeamColor(), testBoard)) {
-                toRemove.add(move);
-            }
-        }
-        for (ChessMove wrong : toRemove) {
-            moves.remove(wrong);
+        int count = generator(piece.getTeamColor()).generate(ChessBoard.square(startPosition), pieceMoves, 0);
+        List<ChessMove> moves = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            moves.add(PackedMove.toChessMove(pieceMoves[i]));
         }
         return moves;
     }
 
+    /**
+     * Lists every legal move of the team whose turn it is as {@link PackedMove packed moves},
+     * without allocating.
+     *
+     * @param moves list to fill from index 0; {@link PackedMove#MAX_MOVES} long is always enough
+     * @return the number of moves written
+     */
+    public int legalMoves(int[] moves) {
+        return generator(teamTurn).generate(moves, 0);
+    }
+
+    /**
+     * Same as {@link #legalMoves(int[])}, but lists only captures and promotions.
+     */
+    public int legalCaptures(int[] moves) {
+        return generator(teamTurn).generateCaptures(moves, 0);
+    }
+
+    /**
+     * @return the move generator for a team on the current board, rebuilt only when the board
+     * has changed since it was last used
+     */
+    private MoveGenerator generator(TeamColor teamColor) {
+        MoveGenerator generator = generators[teamColor.ordinal()];
+        int passant = teamColor == teamTurn ? enPassant : -1;
+        if (generator == null || !generator.isCurrent(currentBoard, castlingRights, passant)) {
+            generator = new MoveGenerator(currentBoard, teamColor, castlingRights, passant);
+            generators[teamColor.ordinal()] = generator;
+        }
+        return generator;
+    }
+
+    /**
+     * @return true if any of {@code moves} ends on the king of {@code teamColor} on {@code testBoard}
+     */
     public boolean checkCheck(TeamColor teamColor, ChessBoard testBoard, Collection<ChessMove> moves) {
         for (ChessMove move : moves) {
-            ChessPosition square = move.getEndPosition();
-            ChessPiece target = testBoard.getPiece(square);
+            ChessPiece target = testBoard.getPiece(move.getEndPosition());
             if (target != null && target.getPieceType() == ChessPiece.PieceType.KING && target.getTeamColor() == teamColor) {
                 return true;
             }
@@ -93,20 +325,10 @@ public class ChessGame {
     }
 
     public boolean isMoveIntoCheck(TeamColor teamColor, ChessBoard testBoard) {
-        ChessPosition spot;
-        ChessPiece piece;
-        int x = 0;
-        while (x++ < 8) {
-            int y = 0;
-            while (y++ < 8) {
-                spot = new ChessPosition(x, y);
-                piece = testBoard.getPiece(spot);
-                if (piece != null && piece.getTeamColor() != teamColor) {
-                    Collection<ChessMove> moves = piece.pieceMoves(testBoard, spot);
-                    if (checkCheck(teamColor, testBoard, moves)) {
-                        return true;
-                    }
-                }
+        TeamColor enemy = teamColor == TeamColor.WHITE ? TeamColor.BLACK : TeamColor.WHITE;
+        for (long kings = testBoard.pieces(teamColor, ChessPiece.PieceType.KING); kings != 0; kings &= kings - 1) {
+            if (testBoard.isAttacked(Long.numberOfTrailingZeros(kings), enemy)) {
+                return true;
             }
         }
         return false;
@@ -114,7 +336,9 @@ public class ChessGame {
 
 
     /**
-     * Makes a move in a chess game
+     * Makes a move in a chess game. The game ends if the team to move then has no legal move,
+     * if the position has now stood three times, or after fifty moves by each team without a
+     * capture or pawn move.
      *
      * @param move chess move to perform
      * @throws InvalidMoveException if move is invalid
@@ -127,40 +351,151 @@ public class ChessGame {
         if (piece == null || piece.getTeamColor() != turn) {
             throw new InvalidMoveException();
         }
-        Collection<ChessMove> moves = validMoves(location);
-        if (!moves.contains(move)) {
-            throw new InvalidMoveException();
-        }
-        if (piece.getPieceType() == ChessPiece.PieceType.PAWN) {
-            if (piece.getTeamColor() == TeamColor.BLACK && move.getEndPosition().getRow() == 1) {
-                piece = new ChessPiece(TeamColor.BLACK, move.getPromotionPiece());
-            }
-            else if (piece.getTeamColor() == TeamColor.WHITE && move.getEndPosition().getRow() == 8) {
-                piece = new ChessPiece(TeamColor.WHITE, move.getPromotionPiece());
+        int wanted = PackedMove.fromChessMove(move);
+        int count = generator(turn).generate(ChessBoard.square(location), pieceMoves, 0);
+        for (int i = 0; i < count; i++) {
+            if (PackedMove.withoutFlags(pieceMoves[i]) == wanted) {
+                doMove(pieceMoves[i]);
+                if (halfmoveClock == 0) {
+                    historyCount = 0;
+                }
+                MoveGenerator status = generator(teamTurn);
+                if (!status.hasLegalMove()) {
+                    playing = false;
+                    setTeamTurn(turn);
+                } else if (isFiftyMoveRule() || isThreefoldRepetition()) {
+                    playing = false;
+                }
+                return;
             }
         }
-        currentBoard.addPiece(move.getEndPosition(), piece);
-        currentBoard.addPiece(move.getStartPosition(), null);
-        blackCheck = false;
-        whiteCheck = false;
-        if (turn == TeamColor.WHITE) {
-            if (isInCheckmate(TeamColor.BLACK) || isInStalemate(TeamColor.BLACK)) {
-                playing = false;
-            }
-            else {
-                setTeamTurn(TeamColor.BLACK);
-            }
-            blackCheck = isInCheck(TeamColor.BLACK);
+        throw new InvalidMoveException();
+    }
+
+    /**
+     * Plays a move on the board in place, without checking that it is legal, and records
+     * what is needed to take it back with {@link #undoMove()}. The turn passes to the other
+     * team and the check flags are updated; whether the game is over is not evaluated.
+     *
+     * @param move a move for the piece on its start position, which must not be empty
+     */
+    public void doMove(ChessMove move) {
+        doMove(PackedMove.fromChessMove(move));
+    }
+
+    /**
+     * Same as {@link #doMove(ChessMove)} for a {@link PackedMove packed move}. A king moving
+     * two files castles, taking its rook along, and a pawn moving diagonally onto an empty
+     * square captures en passant.
+     */
+    public void doMove(int move) {
+        int from = PackedMove.from(move);
+        int to = PackedMove.to(move);
+        int moved = currentBoard.pieceAt(from);
+        int captured = currentBoard.pieceAt(to);
+        int type = moved % 6;
+        boolean passantCapture = type == ChessPiece.PieceType.PAWN.ordinal() && captured < 0 && ((from ^ to) & 7) != 0;
+        TeamColor mover = moved < 6 ? TeamColor.WHITE : TeamColor.BLACK;
+        long record = from | (long) to << 6 | (long) moved << 12 | (long) (captured + 1) << 16
+                | (teamTurn == TeamColor.BLACK ? 1L << 20 : 0L) | (whiteCheck ? 1L << 21 : 0L)
+                | (blackCheck ? 1L << 22 : 0L) | (playing ? 1L << 23 : 0L)
+                | (long) castlingRights << 24 | (long) (enPassant + 1) << 28 | (passantCapture ? 1L << 35 : 0L)
+                | (long) Math.min(halfmoveClock, 0xFFFF) << 36;
+        if (undoCount == undoStack.length) {
+            undoStack = Arrays.copyOf(undoStack, undoCount * 2);
         }
-        else {
-            if (isInCheckmate(TeamColor.WHITE) || isInStalemate(TeamColor.WHITE)) {
-                playing = false;
-            }
-            else {
-                setTeamTurn(TeamColor.WHITE);
+        undoStack[undoCount++] = record;
+        if (historyCount == history.length) {
+            history = Arrays.copyOf(history, historyCount * 2);
+        }
+        history[historyCount++] = getPositionKey();
+        halfmoveClock = captured >= 0 || type == ChessPiece.PieceType.PAWN.ordinal() ? 0 : halfmoveClock + 1;
+
+        ChessPiece.PieceType promotion = PackedMove.promotion(move);
+        currentBoard.removePiece(to);
+        currentBoard.removePiece(from);
+        currentBoard.putPiece(to, promotion == null ? moved : ChessBoard.pieceIndex(mover, promotion));
+        if (passantCapture) {
+            currentBoard.removePiece(mover == TeamColor.WHITE ? to - 8 : to + 8);
+        } else if (type == ChessPiece.PieceType.KING.ordinal() && (to - from == 2 || from - to == 2)) {
+            int rookFrom = to > from ? from + 3 : from - 4;
+            int rook = currentBoard.pieceAt(rookFrom);
+            currentBoard.removePiece(rookFrom);
+            currentBoard.putPiece((from + to) >> 1, rook);
+        }
+        castlingRights &= CASTLING_KEPT[from] & CASTLING_KEPT[to];
+        enPassant = -1;
+        if (type == ChessPiece.PieceType.PAWN.ordinal() && (to - from == 16 || from - to == 16)) {
+            int passed = (from + to) >> 1;
+            TeamColor enemy = mover == TeamColor.WHITE ? TeamColor.BLACK : TeamColor.WHITE;
+            if ((Bitboards.PAWN_ATTACKS[mover.ordinal()][passed]
+                    & currentBoard.pieces(enemy, ChessPiece.PieceType.PAWN)) != 0) {
+                enPassant = passed;
             }
-            whiteCheck = isInCheck(TeamColor.WHITE);
         }
+
+        if (mover == TeamColor.BLACK) {
+            fullmoveNumber++;
+        }
+        setTeamTurn(mover == TeamColor.WHITE ? TeamColor.BLACK : TeamColor.WHITE);
+        updateCheckFlags();
+    }
+
+    /**
+     * Sets the check flag of the team to move from the board, and clears the other one.
+     */
+    private void updateCheckFlags() {
+        TeamColor enemy = teamTurn == TeamColor.WHITE ? TeamColor.BLACK : TeamColor.WHITE;
+        long king = currentBoard.pieces(teamTurn, ChessPiece.PieceType.KING);
+        boolean check = king != 0 && currentBoard.isAttacked(Long.numberOfTrailingZeros(king), enemy);
+        whiteCheck = teamTurn == TeamColor.WHITE && check;
+        blackCheck = teamTurn == TeamColor.BLACK && check;
+    }
+
+    /**
+     * Takes back the most recent move made with {@link #doMove} or {@link #makeMove}, restoring
+     * the board, the turn, the check flags, castling rights, any en passant capture, the
+     * halfmove clock and whether the game is still being played. Taking back a capture or pawn
+     * move made with {@link #makeMove} does not bring back the positions before it, so
+     * repetitions of those are no longer detected.
+     *
+     * @throws IllegalStateException if there is no move to take back
+     */
+    public void undoMove() {
+        if (undoCount == 0) {
+            throw new IllegalStateException("No move to undo");
+        }
+        long record = undoStack[--undoCount];
+        int from = (int) (record & 63);
+        int to = (int) (record >>> 6 & 63);
+        int moved = (int) (record >>> 12 & 15);
+        int captured = (int) (record >>> 16 & 15) - 1;
+        currentBoard.removePiece(to);
+        currentBoard.putPiece(from, moved);
+        if ((record & 1L << 35) != 0) {
+            currentBoard.putPiece(moved < 6 ? to - 8 : to + 8, ChessBoard.pieceIndex(
+                    moved < 6 ? TeamColor.BLACK : TeamColor.WHITE, ChessPiece.PieceType.PAWN));
+        } else if (captured >= 0) {
+            currentBoard.putPiece(to, captured);
+        } else if (moved % 6 == ChessPiece.PieceType.KING.ordinal() && (to - from == 2 || from - to == 2)) {
+            int rookTo = (from + to) >> 1;
+            int rook = currentBoard.pieceAt(rookTo);
+            currentBoard.removePiece(rookTo);
+            currentBoard.putPiece(to > from ? from + 3 : from - 4, rook);
+        }
+        castlingRights = (int) (record >>> 24 & 15);
+        enPassant = (int) (record >>> 28 & 127) - 1;
+        halfmoveClock = (int) (record >>> 36 & 0xFFFF);
+        if (historyCount > 0) {
+            historyCount--;
+        }
+        teamTurn = (record & 1L << 20) != 0 ? TeamColor.BLACK : TeamColor.WHITE;
+        if (teamTurn == TeamColor.BLACK) {
+            fullmoveNumber--;
+        }
+        whiteCheck = (record & 1L << 21) != 0;
+        blackCheck = (record & 1L << 22) != 0;
+        playing = (record & 1L << 23) != 0;
     }
 
     /**
@@ -170,47 +505,13 @@ public class ChessGame {
      * @return True if the specified team is in check
      */
     public boolean isInCheck(TeamColor teamColor) {
-        ChessPosition spot;
-        ChessPiece piece;
-        int x = 0;
-        while (x++ < 8) {
-            int y = 0;
-            while (y++ < 8) {
-                spot = new ChessPosition(x, y);
-                piece = currentBoard.getPiece(spot);
-                if (piece != null && piece.getTeamColor() != teamColor) {
-                    Collection<ChessMove> moves = piece.pieceMoves(currentBoard, spot);
-                    if (checkCheck(teamColor, currentBoard, moves)) {
-                        return true;
-                    }
-                }
-            }
-        }
-        return false;
+        return generator(teamColor).inCheck();
     }
 
     public boolean isSurrounded(TeamColor teamColor) {
-        ChessPosition spot;
-        ChessPiece piece;
-        int x = 0;
-        while (x++ < 8) {
-            int y = 0;
-            while (y++ < 8) {
-                spot = new ChessPosition(x, y);
-                piece = currentBoard.getPiece(spot);
-                if (piece != null && piece.getTeamColor() == teamColor) {
-                    Collection<ChessMove> escape = validMoves(spot);
-                    if (!escape.isEmpty()) {
-                        return false;
-                    }
-                }
-            }
-        }
-        return true;
+        return !generator(teamColor).hasLegalMove();
     }
 
-
-
     /**
      * Determines if the given team is in checkmate
      *
@@ -245,12 +546,218 @@ public class ChessGame {
     }
 
     /**
-     * Sets this game's chessboard with a given board
+     * Sets this game's chessboard with a given board. Each king and rook still on its starting
+     * square is taken not to have moved, so castling rights follow from the board, and there
+     * is no en passant capture to make. The move counters and the record of earlier positions
+     * start over.
      *
      * @param board the new board to use
      */
     public void setBoard(ChessBoard board) {
         currentBoard = new ChessBoard(board);
+        undoCount = 0;
+        historyCount = 0;
+        halfmoveClock = 0;
+        fullmoveNumber = 1;
+        enPassant = -1;
+        castlingRights = availableCastling();
+    }
+
+    /**
+     * @return the castling rights the board allows: those whose king and rook are still on
+     * their starting squares
+     */
+    private int availableCastling() {
+        int rights = 0;
+        long whiteRooks = currentBoard.pieces(TeamColor.WHITE, ChessPiece.PieceType.ROOK);
+        long blackRooks = currentBoard.pieces(TeamColor.BLACK, ChessPiece.PieceType.ROOK);
+        if ((currentBoard.pieces(TeamColor.WHITE, ChessPiece.PieceType.KING) & 1L << 4) != 0) {
+            rights |= (whiteRooks & 1L << 7) != 0 ? WHITE_KINGSIDE : 0;
+            rights |= (whiteRooks & 1L) != 0 ? WHITE_QUEENSIDE : 0;
+        }
+        if ((currentBoard.pieces(TeamColor.BLACK, ChessPiece.PieceType.KING) & 1L << 60) != 0) {
+            rights |= (blackRooks & 1L << 63) != 0 ? BLACK_KINGSIDE : 0;
+            rights |= (blackRooks & 1L << 56) != 0 ? BLACK_QUEENSIDE : 0;
+        }
+        return rights;
+    }
+
+    /**
+     * Builds a game from a position in Forsyth-Edwards Notation.
+     *
+     * @see #setFen(CharSequence)
+     */
+    public static ChessGame fromFen(CharSequence fen) {
+        ChessGame game = new ChessGame();
+        game.setFen(fen);
+        return game;
+    }
+
+    /**
+     * Sets up this game from a position in Forsyth-Edwards Notation, reusing the game's board,
+     * so that positions can be loaded one after another without allocating.
+     * <p>
+     * The piece placement and side to move are required. Castling rights, en passant square
+     * and the two move counters may be left off, as in EPD records, and anything after the last
+     * field read is ignored. Castling rights whose king or rook is not on its starting square
+     * are dropped, as is an en passant square no pawn can capture onto. The game is in play
+     * with nothing to undo.
+     *
+     * @throws IllegalArgumentException if the record is malformed; the game's position is
+     *                                  then undefined
+     */
+    public void setFen(CharSequence fen) {
+        int length = fen.length();
+        int i = skipSpaces(fen, 0);
+        currentBoard.clear();
+        int row = 7;
+        int col = 0;
+        for (; i < length && fen.charAt(i) != ' '; i++) {
+            char c = fen.charAt(i);
+            if (c == '/') {
+                if (col != 8 || row == 0) {
+                    throw badFen(fen, "rank of the wrong length");
+                }
+                row--;
+                col = 0;
+            } else if (c >= '1' && c <= '8') {
+                col += c - '0';
+            } else {
+                int piece = FEN_PIECES.indexOf(c);
+                if (piece < 0) {
+                    throw badFen(fen, "unknown piece '" + c + "'");
+                }
+                if (col > 7) {
+                    throw badFen(fen, "rank of the wrong length");
+                }
+                currentBoard.putPiece(row * 8 + col++, piece);
+            }
+            if (col > 8) {
+                throw badFen(fen, "rank of the wrong length");
+            }
+        }
+        if (row != 0 || col != 8) {
+            throw badFen(fen, "placement does not cover the board");
+        }
+
+        i = skipSpaces(fen, i);
+        if (i == length || fen.charAt(i) != 'w' && fen.charAt(i) != 'b') {
+            throw badFen(fen, "side to move must be 'w' or 'b'");
+        }
+        teamTurn = fen.charAt(i++) == 'w' ? TeamColor.WHITE : TeamColor.BLACK;
+
+        int rights = 0;
+        i = skipSpaces(fen, i);
+        if (i < length && fen.charAt(i) == '-') {
+            i++;
+        } else {
+            for (; i < length && fen.charAt(i) != ' '; i++) {
+                int right = "KQkq".indexOf(fen.charAt(i));
+                if (right < 0) {
+                    throw badFen(fen, "unknown castling right '" + fen.charAt(i) + "'");
+                }
+                rights |= 1 << right;
+            }
+        }
+        castlingRights = rights & availableCastling();
+
+        enPassant = -1;
+        i = skipSpaces(fen, i);
+        if (i < length && fen.charAt(i) == '-') {
+            i++;
+        } else if (i < length) {
+            char file = fen.charAt(i);
+            char rank = i + 1 < length ? fen.charAt(i + 1) : ' ';
+            if (file < 'a' || file > 'h' || rank != (teamTurn == TeamColor.WHITE ? '6' : '3')) {
+                throw badFen(fen, "bad en passant square");
+            }
+            i += 2;
+            int square = (rank - '1') * 8 + file - 'a';
+            TeamColor enemy = teamTurn == TeamColor.WHITE ? TeamColor.BLACK : TeamColor.WHITE;
+            long pushed = 1L << (teamTurn == TeamColor.WHITE ? square - 8 : square + 8);
+            if ((currentBoard.pieces(enemy, ChessPiece.PieceType.PAWN) & pushed) != 0
+                    && (Bitboards.PAWN_ATTACKS[enemy.ordinal()][square]
+                    & currentBoard.pieces(teamTurn, ChessPiece.PieceType.PAWN)) != 0) {
+                enPassant = square;
+            }
+        }
+
+        halfmoveClock = 0;
+        fullmoveNumber = 1;
+        i = skipSpaces(fen, i);
+        if (i < length && fen.charAt(i) >= '0' && fen.charAt(i) <= '9') {
+            int clock = 0;
+            for (; i < length && fen.charAt(i) >= '0' && fen.charAt(i) <= '9'; i++) {
+                clock = clock * 10 + fen.charAt(i) - '0';
+            }
+            i = skipSpaces(fen, i);
+            int number = 0;
+            for (; i < length && fen.charAt(i) >= '0' && fen.charAt(i) <= '9'; i++) {
+                number = number * 10 + fen.charAt(i) - '0';
+            }
+            halfmoveClock = clock;
+            fullmoveNumber = Math.max(1, number);
+        }
+
+        undoCount = 0;
+        historyCount = 0;
+        playing = true;
+        updateCheckFlags();
+    }
+
+    private static int skipSpaces(CharSequence text, int i) {
+        while (i < text.length() && text.charAt(i) == ' ') {
+            i++;
+        }
+        return i;
+    }
+
+    private static IllegalArgumentException badFen(CharSequence fen, String problem) {
+        return new IllegalArgumentException("Bad FEN, " + problem + ": " + fen);
+    }
+
+    /**
+     * @return the current position in Forsyth-Edwards Notation
+     */
+    public String toFen() {
+        StringBuilder fen = new StringBuilder(90);
+        for (int row = 7; row >= 0; row--) {
+            int empty = 0;
+            for (int col = 0; col < 8; col++) {
+                int piece = currentBoard.pieceAt(row * 8 + col);
+                if (piece < 0) {
+                    empty++;
+                    continue;
+                }
+                if (empty > 0) {
+                    fen.append(empty);
+                    empty = 0;
+                }
+                fen.append(FEN_PIECES.charAt(piece));
+            }
+            if (empty > 0) {
+                fen.append(empty);
+            }
+            if (row > 0) {
+                fen.append('/');
+            }
+        }
+        fen.append(teamTurn == TeamColor.WHITE ? " w " : " b ");
+        if (castlingRights == 0) {
+            fen.append('-');
+        }
+        for (int right = 0; right < 4; right++) {
+            if ((castlingRights & 1 << right) != 0) {
+                fen.append("KQkq".charAt(right));
+            }
+        }
+        fen.append(' ');
+        if (enPassant < 0) {
+            fen.append('-');
+        } else {
+            fen.append((char) ('a' + (enPassant & 7))).append((char) ('1' + (enPassant >> 3)));
+        }
+        return fen.append(' ').append(halfmoveClock).append(' ').append(fullmoveNumber).toString();
     }
 
     /**
@@ -268,11 +775,60 @@ public class ChessGame {
             return false;
         }
         ChessGame chessGame = (ChessGame) o;
-        return Objects.equals(currentBoard, chessGame.currentBoard) && teamTurn == chessGame.teamTurn;
+        return getPositionKey() == chessGame.getPositionKey()
+                && Objects.equals(currentBoard, chessGame.currentBoard) && teamTurn == chessGame.teamTurn
+                && castlingRights == chessGame.castlingRights && enPassant == chessGame.enPassant;
     }
 
     @Override
     public int hashCode() {
-        return Objects.hash(currentBoard, teamTurn);
+        return Long.hashCode(getPositionKey());
+    }
+
+    /**
+     * Writes a game's fields the way Gson would, plus the keys of the positions in its
+     * {@link #repetitionWindow()} under {@code "repetitions"}, oldest first, so that a game
+     * read back still sees its repetitions. On the way in, castling rights the board no
+     * longer allows are dropped, since games saved before the rights were kept have none.
+     */
+    static final class Adapter implements TypeAdapterFactory {
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public <T> TypeAdapter<T> create(Gson gson, TypeToken<T> type) {
+            TypeAdapter<ChessGame> fields = gson.getDelegateAdapter(this, TypeToken.get(ChessGame.class));
+            TypeAdapter<JsonElement> elements = gson.getAdapter(JsonElement.class);
+            TypeAdapter<ChessGame> adapter = new TypeAdapter<>() {
+
+                @Override
+                public void write(JsonWriter out, ChessGame game) throws IOException {
+                    JsonObject json = fields.toJsonTree(game).getAsJsonObject();
+                    JsonArray keys = new JsonArray();
+                    for (int i = 0; i < game.repetitionWindow(); i++) {
+                        keys.add(game.windowKey(i));
+                    }
+                    json.add("repetitions", keys);
+                    elements.write(out, json);
+                }
+
+                @Override
+                public ChessGame read(JsonReader in) throws IOException {
+                    JsonElement json = elements.read(in);
+                    ChessGame game = fields.fromJsonTree(json);
+                    JsonElement saved = json.getAsJsonObject().get("repetitions");
+                    if (saved != null && saved.isJsonArray()) {
+                        JsonArray array = saved.getAsJsonArray();
+                        long[] keys = new long[array.size()];
+                        for (int i = 0; i < keys.length; i++) {
+                            keys[i] = array.get(i).getAsLong();
+                        }
+                        game.restoreHistory(keys);
+                    }
+                    game.castlingRights &= game.availableCastling();
+                    return game;
+                }
+            };
+            return (TypeAdapter<T>) adapter.nullSafe();
+        }
     }
 }
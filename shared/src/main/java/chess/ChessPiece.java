@@ -1,5 +1,11 @@
 package chess;
 
+import com.google.gson.TypeAdapter;
+import com.google.gson.annotations.JsonAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
+
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
@@ -8,11 +14,25 @@ import java.util.Objects;
 /**
  * Represents a single chess piece
  * <p>
+ * Pieces are immutable, so the twelve colored kinds are shared instances handed out by
+ * {@link #of}; Gson reads pieces through the same cache.
+ * <p>
  * Note: You can add to this class, but you may not alter
  * signature of the existing methods.
  */
+@JsonAdapter(ChessPiece.Adapter.class)
 public class ChessPiece {
 
+    private static final ChessPiece[][] PIECES = new ChessPiece[2][6];
+
+    static {
+        for (ChessGame.TeamColor color : ChessGame.TeamColor.values()) {
+            for (PieceType type : PieceType.values()) {
+                PIECES[color.ordinal()][type.ordinal()] = new ChessPiece(color, type);
+            }
+        }
+    }
+
     private final ChessGame.TeamColor pieceColor;
     private final ChessPiece.PieceType type;
 
@@ -21,6 +41,13 @@ public class ChessPiece {
         this.type = type;
     }
 
+    /**
+     * @return the shared instance of a colored piece kind
+     */
+    public static ChessPiece of(ChessGame.TeamColor pieceColor, ChessPiece.PieceType type) {
+        return PIECES[pieceColor.ordinal()][type.ordinal()];
+    }
+
     /**
      * The various different chess piece options
      */
@@ -48,271 +75,201 @@ public class ChessPiece {
     }
 
     /**
-     * Calculates all the positions a chess piece can move to
-     * Does not take into account moves that are illegal due to leaving the king in
-     * danger
-     *
-     * @return Collection of valid moves
+     * Adds a move from {@code myPosition} to every square in {@code targets}
      */
+    public void addMoves(ChessPosition myPosition, long targets, List<ChessMove> moves) {
+        for (; targets != 0; targets &= targets - 1) {
+            moves.add(new ChessMove(myPosition, ChessBoard.position(Long.numberOfTrailingZeros(targets)), null));
+        }
+    }
 
+    /**
+     * Adds a move to row {@code x}, column {@code y} if the square is empty or holds an enemy
+     *
+     * @return true if a piece stands on the square, so a slide stops there; otherwise {@code b}
+     */
     public boolean addMove(ChessBoard board, ChessPosition myPosition, ChessPiece piece,
                            List<ChessMove> moves, int x, int y, boolean b) {
-        ChessPiece encounter = board.getPiece(new ChessPosition(x, y));
-        if (encounter == null) {
-            moves.add(new ChessMove(myPosition, new ChessPosition(x, y), null));
-        }
-        if (encounter != null && encounter.getTeamColor() == piece.getTeamColor()) {
-            b = true;
-        } else if (encounter != null && encounter.getTeamColor() != piece.getTeamColor()) {
-            moves.add(new ChessMove(myPosition, new ChessPosition(x, y), null));
-            b = true;
+        ChessPosition target = ChessPosition.of(x, y);
+        ChessPiece encounter = board.getPiece(target);
+        if (encounter == null || encounter.getTeamColor() != piece.getTeamColor()) {
+            moves.add(new ChessMove(myPosition, target, null));
         }
-        return b;
+        return b || encounter != null;
     }
 
+    /**
+     * Adds a move to row {@code x}, column {@code y} if the square is empty or holds an enemy
+     */
     public void certainSpotMove(ChessBoard board, ChessPosition myPosition, ChessPiece piece,
                                 List<ChessMove> moves, int x, int y) {
-        ChessPiece encounter = board.getPiece(new ChessPosition(x, y));
-        if (encounter == null) {
-            moves.add(new ChessMove(myPosition, new ChessPosition(x, y), null));
-        }
-        if (encounter != null && encounter.getTeamColor() != piece.getTeamColor()) {
-            moves.add(new ChessMove(myPosition, new ChessPosition(x, y), null));
-        }
+        addMove(board, myPosition, piece, moves, x, y, false);
     }
 
+    /**
+     * Adds every move along the ranks and files from {@code myPosition}, up to the first piece
+     * in each direction and onto it if it is an enemy
+     */
+    public List<ChessMove> rookMoves(ChessBoard board, ChessPosition myPosition, ChessPiece piece,
+                                     List<ChessMove> moves) {
+        long targets = Bitboards.rookAttacks(ChessBoard.square(myPosition), board.occupied())
+                & ~board.occupancy(piece.getTeamColor());
+        addMoves(myPosition, targets, moves);
+        return moves;
+    }
+
+    /**
+     * Adds every move along the diagonals from {@code myPosition}, up to the first piece in
+     * each direction and onto it if it is an enemy
+     */
+    public List<ChessMove> bishopMoves(ChessBoard board, ChessPosition myPosition, ChessPiece piece,
+                                       List<ChessMove> moves) {
+        long targets = Bitboards.bishopAttacks(ChessBoard.square(myPosition), board.occupied())
+                & ~board.occupancy(piece.getTeamColor());
+        addMoves(myPosition, targets, moves);
+        return moves;
+    }
+
+    /**
+     * Same as {@link #rookMoves}. The slides always start from {@code myPosition}; the
+     * remaining arguments were the state of a square-by-square walk and are not needed.
+     */
     public List<ChessMove> straightMoves(ChessBoard board, ChessPosition myPosition, ChessPiece piece,
                                          List<ChessMove> moves, int xStart, int yStart, int x, int y, boolean b) {
-        while (!b && x++ < 8) {
-            b = addMove(board, myPosition, piece,  moves, x, y, b);
-        }
-        // right
-        x = xStart;
-        y = yStart;
-        b = false;
-        while (!b && y++ < 8) {
-            b = addMove(board, myPosition, piece,  moves, x, y, b);
-        }
-        // down
-        x = xStart;
-        y = yStart;
-        b = false;
-        while (!b && x-- > 1) {
-            b = addMove(board, myPosition, piece,  moves, x, y, b);
-        }
-        // left
-        x = xStart;
-        y = yStart;
-        b = false;
-        while (!b && y-- > 1) {
-            b = addMove(board, myPosition, piece,  moves, x, y, b);
-        }
-        return moves;
+        return rookMoves(board, myPosition, piece, moves);
     }
 
+    /**
+     * Same as {@link #bishopMoves}. The slides always start from {@code myPosition}; the
+     * remaining arguments were the state of a square-by-square walk and are not needed.
+     */
     public List<ChessMove> diagonalMoves(ChessBoard board, ChessPosition myPosition, ChessPiece piece,
                                          List<ChessMove> moves, int xStart, int yStart, int x, int y, boolean b) {
-        while (!b && x++ < 8 && y-- > 1) {
-            b = addMove(board, myPosition, piece,  moves, x, y, b);
-        }
-        // up right
-        x = xStart;
-        y = yStart;
-        b = false;
-        while (!b && x++ < 8 && y++ < 8) {
-            b = addMove(board, myPosition, piece,  moves, x, y, b);
-        }
-        // down right
-        x = xStart;
-        y = yStart;
-        b = false;
-        while (!b && x-- > 1 && y++ < 8) {
-            b = addMove(board, myPosition, piece,  moves, x, y, b);
-        }
-        // down left
-        x = xStart;
-        y = yStart;
-        b = false;
-        while (!b && x-- > 1 && y-- > 1) {
-            b = addMove(board, myPosition, piece,  moves, x, y, b);
-        }
-        return moves;
-
+        return bishopMoves(board, myPosition, piece, moves);
     }
 
     public List<ChessMove> pawnMoves(ChessBoard board, ChessPosition myPosition, ChessPiece piece,
                                      List<ChessMove> moves, int x, int y) {
         if (piece.getTeamColor() == ChessGame.TeamColor.WHITE) {
-            ChessPiece encounter = board.getPiece(new ChessPosition(x + 1, y));
+            ChessPiece encounter = board.getPiece(ChessPosition.of(x + 1, y));
             if (encounter == null) {
                 if (x + 1 == 8) {
-                    moves.add(new ChessMove(myPosition, new ChessPosition(x + 1, y), PieceType.QUEEN));
-                    moves.add(new ChessMove(myPosition, new ChessPosition(x + 1, y), PieceType.ROOK));
-                    moves.add(new ChessMove(myPosition, new ChessPosition(x + 1, y), PieceType.BISHOP));
-                    moves.add(new ChessMove(myPosition, new ChessPosition(x + 1, y), PieceType.KNIGHT));
+                    moves.add(new ChessMove(myPosition, ChessPosition.of(x + 1, y), PieceType.QUEEN));
+                    moves.add(new ChessMove(myPosition, ChessPosition.of(x + 1, y), PieceType.ROOK));
+                    moves.add(new ChessMove(myPosition, ChessPosition.of(x + 1, y), PieceType.BISHOP));
+                    moves.add(new ChessMove(myPosition, ChessPosition.of(x + 1, y), PieceType.KNIGHT));
                 }
                 else {
-                    moves.add(new ChessMove(myPosition, new ChessPosition(x + 1, y), null));
+                    moves.add(new ChessMove(myPosition, ChessPosition.of(x + 1, y), null));
                 }
             }
             if (y < 8) {
-                ChessPiece diagonalRightEncounter = board.getPiece(new ChessPosition(x + 1, y + 1));
+                ChessPiece diagonalRightEncounter = board.getPiece(ChessPosition.of(x + 1, y + 1));
                 if (diagonalRightEncounter != null && diagonalRightEncounter.getTeamColor() != piece.getTeamColor()) {
                     if (x + 1 == 8) {
-                        moves.add(new ChessMove(myPosition, new ChessPosition(x+1, y+1), PieceType.QUEEN));
-                        moves.add(new ChessMove(myPosition, new ChessPosition(x+1, y+1), PieceType.ROOK));
-                        moves.add(new ChessMove(myPosition, new ChessPosition(x+1, y+1), PieceType.BISHOP));
-                        moves.add(new ChessMove(myPosition, new ChessPosition(x+1, y+1), PieceType.KNIGHT));
+                        moves.add(new ChessMove(myPosition, ChessPosition.of(x+1, y+1), PieceType.QUEEN));
+                        moves.add(new ChessMove(myPosition, ChessPosition.of(x+1, y+1), PieceType.ROOK));
+                        moves.add(new ChessMove(myPosition, ChessPosition.of(x+1, y+1), PieceType.BISHOP));
+                        moves.add(new ChessMove(myPosition, ChessPosition.of(x+1, y+1), PieceType.KNIGHT));
                     }
                     else {
-                        moves.add(new ChessMove(myPosition, new ChessPosition(x+1, y+1), null));
+                        moves.add(new ChessMove(myPosition, ChessPosition.of(x+1, y+1), null));
                     }
                 }
             }
             if (y > 1) {
-                ChessPiece diagonalLeftEncounter = board.getPiece(new ChessPosition(x + 1, y - 1));
+                ChessPiece diagonalLeftEncounter = board.getPiece(ChessPosition.of(x + 1, y - 1));
                 if (diagonalLeftEncounter != null && diagonalLeftEncounter.getTeamColor() != piece.getTeamColor()) {
                     if (x + 1 == 8) {
-                        moves.add(new ChessMove(myPosition, new ChessPosition(x+1, y-1), PieceType.QUEEN));
-                        moves.add(new ChessMove(myPosition, new ChessPosition(x+1, y-1), PieceType.ROOK));
-                        moves.add(new ChessMove(myPosition, new ChessPosition(x+1, y-1), PieceType.BISHOP));
-                        moves.add(new ChessMove(myPosition, new ChessPosition(x+1, y-1), PieceType.KNIGHT));
+                        moves.add(new ChessMove(myPosition, ChessPosition.of(x+1, y-1), PieceType.QUEEN));
+                        moves.add(new ChessMove(myPosition, ChessPosition.of(x+1, y-1), PieceType.ROOK));
+                        moves.add(new ChessMove(myPosition, ChessPosition.of(x+1, y-1), PieceType.BISHOP));
+                        moves.add(new ChessMove(myPosition, ChessPosition.of(x+1, y-1), PieceType.KNIGHT));
                     }
                     else {
-                        moves.add(new ChessMove(myPosition, new ChessPosition(x+1, y-1), null));
+                        moves.add(new ChessMove(myPosition, ChessPosition.of(x+1, y-1), null));
                     }
                 }
             }
             if (x == 2) {
-                ChessPiece encounter2 = board.getPiece(new ChessPosition(x + 2, y));
+                ChessPiece encounter2 = board.getPiece(ChessPosition.of(x + 2, y));
                 if (encounter2 == null && encounter == null) {
-                    moves.add(new ChessMove(myPosition, new ChessPosition(x + 2, y), null));
+                    moves.add(new ChessMove(myPosition, ChessPosition.of(x + 2, y), null));
                 }
             }
         }
         if (piece.getTeamColor() == ChessGame.TeamColor.BLACK) {
-            ChessPiece encounter = board.getPiece(new ChessPosition(x - 1, y));
+            ChessPiece encounter = board.getPiece(ChessPosition.of(x - 1, y));
             if (encounter == null) {
                 if (x - 1 == 1) {
-                    moves.add(new ChessMove(myPosition, new ChessPosition(x - 1, y), PieceType.QUEEN));
-                    moves.add(new ChessMove(myPosition, new ChessPosition(x - 1, y), PieceType.ROOK));
-                    moves.add(new ChessMove(myPosition, new ChessPosition(x - 1, y), PieceType.BISHOP));
-                    moves.add(new ChessMove(myPosition, new ChessPosition(x - 1, y), PieceType.KNIGHT));
+                    moves.add(new ChessMove(myPosition, ChessPosition.of(x - 1, y), PieceType.QUEEN));
+                    moves.add(new ChessMove(myPosition, ChessPosition.of(x - 1, y), PieceType.ROOK));
+                    moves.add(new ChessMove(myPosition, ChessPosition.of(x - 1, y), PieceType.BISHOP));
+                    moves.add(new ChessMove(myPosition, ChessPosition.of(x - 1, y), PieceType.KNIGHT));
                 }
                 else {
-                    moves.add(new ChessMove(myPosition, new ChessPosition(x - 1, y), null));
+                    moves.add(new ChessMove(myPosition, ChessPosition.of(x - 1, y), null));
                 }
             }
             if (y < 8) {
-                ChessPiece diagonalRightEncounter = board.getPiece(new ChessPosition(x - 1, y + 1));
+                ChessPiece diagonalRightEncounter = board.getPiece(ChessPosition.of(x - 1, y + 1));
                 if (diagonalRightEncounter != null && diagonalRightEncounter.getTeamColor() != piece.getTeamColor()) {
                     if (x - 1 == 1) {
-                        moves.add(new ChessMove(myPosition, new ChessPosition(x-1, y+1), PieceType.QUEEN));
-                        moves.add(new ChessMove(myPosition, new ChessPosition(x-1, y+1), PieceType.ROOK));
-                        moves.add(new ChessMove(myPosition, new ChessPosition(x-1, y+1), PieceType.BISHOP));
-                        moves.add(new ChessMove(myPosition, new ChessPosition(x-1, y+1), PieceType.KNIGHT));
+                        moves.add(new ChessMove(myPosition, ChessPosition.of(x-1, y+1), PieceType.QUEEN));
+                        moves.add(new ChessMove(myPosition, ChessPosition.of(x-1, y+1), PieceType.ROOK));
+                        moves.add(new ChessMove(myPosition, ChessPosition.of(x-1, y+1), PieceType.BISHOP));
+                        moves.add(new ChessMove(myPosition, ChessPosition.of(x-1, y+1), PieceType.KNIGHT));
                     }
                     else {
-                        moves.add(new ChessMove(myPosition, new ChessPosition(x-1, y+1), null));
+                        moves.add(new ChessMove(myPosition, ChessPosition.of(x-1, y+1), null));
                     }
                 }
             }
             if (y > 1) {
-                ChessPiece diagonalLeftEncounter = board.getPiece(new ChessPosition(x - 1, y - 1));
+                ChessPiece diagonalLeftEncounter = board.getPiece(ChessPosition.of(x - 1, y - 1));
                 if (diagonalLeftEncounter != null && diagonalLeftEncounter.getTeamColor() != piece.getTeamColor()) {
                     if (x - 1 == 1) {
-                        moves.add(new ChessMove(myPosition, new ChessPosition(x-1, y-1), PieceType.QUEEN));
-                        moves.add(new ChessMove(myPosition, new ChessPosition(x-1, y-1), PieceType.ROOK));
-                        moves.add(new ChessMove(myPosition, new ChessPosition(x-1, y-1), PieceType.BISHOP));
-                        moves.add(new ChessMove(myPosition, new ChessPosition(x-1, y-1), PieceType.KNIGHT));
+                        moves.add(new ChessMove(myPosition, ChessPosition.of(x-1, y-1), PieceType.QUEEN));
+                        moves.add(new ChessMove(myPosition, ChessPosition.of(x-1, y-1), PieceType.ROOK));
+                        moves.add(new ChessMove(myPosition, ChessPosition.of(x-1, y-1), PieceType.BISHOP));
+                        moves.add(new ChessMove(myPosition, ChessPosition.of(x-1, y-1), PieceType.KNIGHT));
                     }
                     else {
-                        moves.add(new ChessMove(myPosition, new ChessPosition(x-1, y-1), null));
+                        moves.add(new ChessMove(myPosition, ChessPosition.of(x-1, y-1), null));
                     }
                 }
             }
             if (x == 7) {
-                ChessPiece encounter2 = board.getPiece(new ChessPosition(x - 2, y));
+                ChessPiece encounter2 = board.getPiece(ChessPosition.of(x - 2, y));
                 if (encounter2 == null && encounter == null) {
-                    moves.add(new ChessMove(myPosition, new ChessPosition(x - 2, y), null));
+                    moves.add(new ChessMove(myPosition, ChessPosition.of(x - 2, y), null));
                 }
             }
         }
         return moves;
     }
 
+    /**
+     * Calculates all the positions a chess piece can move to
+     * Does not take into account moves that are illegal due to leaving the king in
+     * danger
+     *
+     * @return Collection of valid moves
+     */
     public Collection<ChessMove> pieceMoves(ChessBoard board, ChessPosition myPosition) {
         ChessPiece piece = board.getPiece(myPosition);
-        if (piece.getPieceType() == PieceType.BISHOP) {
-            List<ChessMove> moves = new ArrayList<>();
-            boolean b = false;
-            return diagonalMoves(board, myPosition, piece, moves, myPosition.getRow(),
-                    myPosition.getColumn(), myPosition.getRow(), myPosition.getColumn(), b);
-        }
-        if (piece.getPieceType() == PieceType.KING) {
-            List<ChessMove> moves = new ArrayList<>();
-            if (myPosition.getRow() < 8) {certainSpotMove(board, myPosition, piece, moves,
-                    myPosition.getRow() + 1, myPosition.getColumn());}
-            if (myPosition.getRow() < 8 && myPosition.getColumn() < 8) {certainSpotMove(board, myPosition, piece, moves,
-                    myPosition.getRow() + 1, myPosition.getColumn() + 1);}
-            if (myPosition.getColumn() < 8) {certainSpotMove(board, myPosition, piece, moves,
-                    myPosition.getRow(), myPosition.getColumn() + 1);}
-            if (myPosition.getRow() > 1 && myPosition.getColumn() < 8) {certainSpotMove(board, myPosition, piece, moves,
-                    myPosition.getRow() - 1, myPosition.getColumn() + 1);}
-            if (myPosition.getRow() > 1) {certainSpotMove(board, myPosition, piece, moves,
-                    myPosition.getRow() - 1, myPosition.getColumn());}
-            if (myPosition.getRow() > 1 && myPosition.getColumn() > 1) {certainSpotMove(board, myPosition, piece, moves,
-                    myPosition.getRow() - 1, myPosition.getColumn() - 1);}
-            if (myPosition.getColumn() > 1) {certainSpotMove(board, myPosition, piece, moves,
-                    myPosition.getRow(), myPosition.getColumn() - 1);}
-            if (myPosition.getRow() < 8 && myPosition.getColumn() > 1) {certainSpotMove(board, myPosition, piece, moves,
-                    myPosition.getRow() + 1, myPosition.getColumn() - 1);}
-            return moves;
-        }
-        if (piece.getPieceType() == PieceType.KNIGHT) {
-            List<ChessMove> moves = new ArrayList<>();
-            if (myPosition.getRow() < 7 && myPosition.getColumn() < 8) {certainSpotMove(board, myPosition, piece, moves,
-                    myPosition.getRow() + 2, myPosition.getColumn() + 1);}
-            if (myPosition.getRow() < 8 && myPosition.getColumn() < 7) {certainSpotMove(board, myPosition, piece, moves,
-                    myPosition.getRow() + 1, myPosition.getColumn() + 2);}
-            if (myPosition.getRow() > 1 && myPosition.getColumn() < 7) {certainSpotMove(board, myPosition, piece, moves,
-                    myPosition.getRow() - 1, myPosition.getColumn() + 2);}
-            if (myPosition.getRow() > 2 && myPosition.getColumn() < 8) {certainSpotMove(board, myPosition, piece, moves,
-                    myPosition.getRow() - 2, myPosition.getColumn() + 1);}
-            if (myPosition.getRow() > 2 && myPosition.getColumn() > 1) {certainSpotMove(board, myPosition, piece, moves,
-                    myPosition.getRow() - 2, myPosition.getColumn() - 1);}
-            if (myPosition.getRow() > 1 && myPosition.getColumn() > 2) {certainSpotMove(board, myPosition, piece, moves,
-                    myPosition.getRow() - 1, myPosition.getColumn() - 2);}
-            if (myPosition.getRow() < 8 && myPosition.getColumn() > 2) {certainSpotMove(board, myPosition, piece, moves,
-                    myPosition.getRow() + 1, myPosition.getColumn() -2);}
-            if (myPosition.getRow() < 7 && myPosition.getColumn() > 1) {certainSpotMove(board, myPosition, piece, moves,
-                    myPosition.getRow() + 2, myPosition.getColumn() - 1);}
-            return moves;
-        }
-        if (piece.getPieceType() == PieceType.ROOK) {
-            List<ChessMove> moves = new ArrayList<>();
-            int xStart = myPosition.getRow();
-            int yStart = myPosition.getColumn();
-            int x = xStart;
-            int y = yStart;
-            boolean b = false;
-            return straightMoves(board, myPosition, piece, moves, xStart, yStart, x, y, b);
-        }
-        if (piece.getPieceType() == PieceType.QUEEN) {
-            List<ChessMove> moves = new ArrayList<>();
-            int xStart = myPosition.getRow();
-            int yStart = myPosition.getColumn();
-            int x = xStart;
-            int y = yStart;
-            boolean b = false;
-            moves = straightMoves(board, myPosition, piece, moves, xStart, yStart, x, y, b);
-            return diagonalMoves(board, myPosition, piece, moves, xStart, yStart, x, y, b);
+        List<ChessMove> moves = new ArrayList<>();
+        int square = ChessBoard.square(myPosition);
+        long notOwn = ~board.occupancy(piece.getTeamColor());
+        switch (piece.getPieceType()) {
+            case BISHOP -> bishopMoves(board, myPosition, piece, moves);
+            case ROOK -> rookMoves(board, myPosition, piece, moves);
+            case QUEEN -> bishopMoves(board, myPosition, piece, rookMoves(board, myPosition, piece, moves));
+            case KING -> addMoves(myPosition, Bitboards.KING_ATTACKS[square] & notOwn, moves);
+            case KNIGHT -> addMoves(myPosition, Bitboards.KNIGHT_ATTACKS[square] & notOwn, moves);
+            case PAWN -> pawnMoves(board, myPosition, piece, moves, myPosition.getRow(), myPosition.getColumn());
         }
-        if (piece.getPieceType() == PieceType.PAWN) {
-            List<ChessMove> moves = new ArrayList<>();
-            return pawnMoves(board, myPosition, piece, moves, myPosition.getRow(), myPosition.getColumn());
-        }
-        return List.of();
+        return moves;
     }
 
     @Override
@@ -328,4 +285,36 @@ public class ChessPiece {
     public int hashCode() {
         return Objects.hash(pieceColor, type);
     }
+
+    /**
+     * Keeps the {@code {"pieceColor":..,"type":..}} JSON shape while reading pieces back as
+     * the shared instances.
+     */
+    static final class Adapter extends TypeAdapter<ChessPiece> {
+
+        @Override
+        public void write(JsonWriter out, ChessPiece piece) throws IOException {
+            out.beginObject().name("pieceColor").value(piece.pieceColor.name())
+                    .name("type").value(piece.type.name()).endObject();
+        }
+
+        @Override
+        public ChessPiece read(JsonReader in) throws IOException {
+            ChessGame.TeamColor color = null;
+            PieceType type = null;
+            in.beginObject();
+            while (in.hasNext()) {
+                switch (in.nextName()) {
+                    case "pieceColor" -> color = ChessGame.TeamColor.valueOf(in.nextString());
+                    case "type" -> type = PieceType.valueOf(in.nextString());
+                    default -> in.skipValue();
+                }
+            }
+            in.endObject();
+            if (color == null || type == null) {
+                throw new IOException("Incomplete chess piece");
+            }
+            return of(color, type);
+        }
+    }
 }
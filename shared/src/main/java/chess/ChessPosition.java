@@ -1,15 +1,33 @@
 package chess;
 
+import com.google.gson.TypeAdapter;
+import com.google.gson.annotations.JsonAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
+
+import java.io.IOException;
 import java.util.Objects;
 
 /**
  * Represents a single square position on a chess board
  * <p>
+ * Positions are immutable, so the 64 on-board squares are shared instances handed out by
+ * {@link #of}; Gson reads positions through the same cache.
+ * <p>
  * Note: You can add to this class, but you may not alter
  * signature of the existing methods.
  */
+@JsonAdapter(ChessPosition.Adapter.class)
 public class ChessPosition {
 
+    private static final ChessPosition[] SQUARES = new ChessPosition[64];
+
+    static {
+        for (int square = 0; square < 64; square++) {
+            SQUARES[square] = new ChessPosition(square / 8 + 1, square % 8 + 1);
+        }
+    }
+
     private final int row;
     private final int col;
 
@@ -18,6 +36,24 @@ public class ChessPosition {
         this.col = col;
     }
 
+    /**
+     * @return the shared instance for an on-board square, or a new position if the square is
+     * off the board
+     */
+    public static ChessPosition of(int row, int col) {
+        if (row < 1 || row > 8 || col < 1 || col > 8) {
+            return new ChessPosition(row, col);
+        }
+        return SQUARES[(row - 1) * 8 + col - 1];
+    }
+
+    /**
+     * @return the shared instance for a bitboard square (0 = a1, 63 = h8)
+     */
+    static ChessPosition of(int square) {
+        return SQUARES[square];
+    }
+
     /**
      * @return which row this position is in
      * 1 codes for the bottom row
@@ -52,4 +88,32 @@ public class ChessPosition {
     public int hashCode() {
         return Objects.hash(row, col);
     }
+
+    /**
+     * Keeps the {@code {"row":..,"col":..}} JSON shape while reading on-board squares back as
+     * the shared instances.
+     */
+    static final class Adapter extends TypeAdapter<ChessPosition> {
+
+        @Override
+        public void write(JsonWriter out, ChessPosition position) throws IOException {
+            out.beginObject().name("row").value(position.row).name("col").value(position.col).endObject();
+        }
+
+        @Override
+        public ChessPosition read(JsonReader in) throws IOException {
+            int row = 0;
+            int col = 0;
+            in.beginObject();
+            while (in.hasNext()) {
+                switch (in.nextName()) {
+                    case "row" -> row = in.nextInt();
+                    case "col" -> col = in.nextInt();
+                    default -> in.skipValue();
+                }
+            }
+            in.endObject();
+            return of(row, col);
+        }
+    }
 }
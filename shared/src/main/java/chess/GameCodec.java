@@ -0,0 +1,207 @@
+package chess;
+
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.util.Base64;
+
+/**
+ * A compact binary form of games and boards, for storage and for the wire.
+ * <p>
+ * A board is its occupancy bitboard followed by one nibble per occupied square, in square
+ * order, holding the piece index: 8 bytes plus 16 for a full set of pieces. A game adds a
+ * version byte, its state and the keys of the positions that could still repeat:
+ * <pre>
+ *   version          1 byte
+ *   board            8 bytes + one nibble per piece, rounded up
+ *   flags            1 byte: black to move, playing, white in check, black in check (bits 0-3),
+ *                    castling rights (bits 4-7)
+ *   en passant       1 byte: square + 1, or 0
+ *   halfmove clock   2 bytes
+ *   fullmove number  2 bytes
+ *   window           2 bytes of count, then 8 bytes per position key
+ * </pre>
+ * The starting position takes 33 bytes; each move since the last capture or pawn move adds 8.
+ * <p>
+ * {@link GameAdapter} and {@link BoardAdapter} let Gson carry either as a Base64 string, for
+ * callers that register them.
+ */
+public final class GameCodec {
+
+    private static final byte VERSION = 1;
+
+    private GameCodec() {
+    }
+
+    public static byte[] encode(ChessGame game) {
+        ChessBoard board = game.getBoard();
+        int window = game.repetitionWindow();
+        ByteBuffer out = ByteBuffer.allocate(1 + boardSize(board) + 8 + window * 8);
+        out.put(VERSION);
+        writeBoard(board, out);
+        int flags = (game.getTeamTurn() == ChessGame.TeamColor.BLACK ? 1 : 0) | (game.playing ? 2 : 0)
+                | (game.whiteCheck ? 4 : 0) | (game.blackCheck ? 8 : 0) | game.getCastlingRights() << 4;
+        out.put((byte) flags);
+        out.put((byte) (game.getEnPassantSquare() + 1));
+        out.putShort((short) Math.min(game.getHalfmoveClock(), 0xFFFF));
+        out.putShort((short) Math.min(game.getFullmoveNumber(), 0xFFFF));
+        out.putShort((short) window);
+        for (int i = 0; i < window; i++) {
+            out.putLong(game.windowKey(i));
+        }
+        return out.array();
+    }
+
+    /**
+     * @throws IllegalArgumentException if the bytes are not a game written by {@link #encode(ChessGame)}
+     */
+    public static ChessGame decode(byte[] bytes) {
+        try {
+            ByteBuffer in = ByteBuffer.wrap(bytes);
+            if (in.get() != VERSION) {
+                throw new IllegalArgumentException("Unknown game encoding version " + bytes[0]);
+            }
+            ChessGame game = new ChessGame();
+            readBoard(in, game.getBoard());
+            int flags = in.get() & 0xFF;
+            int enPassant = (in.get() & 0xFF) - 1;
+            int halfmoveClock = in.getShort() & 0xFFFF;
+            int fullmoveNumber = in.getShort() & 0xFFFF;
+            long[] keys = new long[in.getShort() & 0xFFFF];
+            for (int i = 0; i < keys.length; i++) {
+                keys[i] = in.getLong();
+            }
+            if (in.hasRemaining() || enPassant > 63) {
+                throw new IllegalArgumentException("Malformed game encoding");
+            }
+            game.restoreState((flags & 1) != 0 ? ChessGame.TeamColor.BLACK : ChessGame.TeamColor.WHITE,
+                    (flags & 2) != 0, (flags & 4) != 0, (flags & 8) != 0, flags >>> 4, enPassant,
+                    halfmoveClock, fullmoveNumber, keys);
+            return game;
+        } catch (BufferUnderflowException e) {
+            throw new IllegalArgumentException("Truncated game encoding", e);
+        }
+    }
+
+    public static byte[] encode(ChessBoard board) {
+        ByteBuffer out = ByteBuffer.allocate(boardSize(board));
+        writeBoard(board, out);
+        return out.array();
+    }
+
+    /**
+     * @throws IllegalArgumentException if the bytes are not a board written by {@link #encode(ChessBoard)}
+     */
+    public static ChessBoard decodeBoard(byte[] bytes) {
+        try {
+            ByteBuffer in = ByteBuffer.wrap(bytes);
+            ChessBoard board = new ChessBoard();
+            readBoard(in, board);
+            if (in.hasRemaining()) {
+                throw new IllegalArgumentException("Malformed board encoding");
+            }
+            return board;
+        } catch (BufferUnderflowException e) {
+            throw new IllegalArgumentException("Truncated board encoding", e);
+        }
+    }
+
+    private static int boardSize(ChessBoard board) {
+        return 8 + (Long.bitCount(board.occupied()) + 1) / 2;
+    }
+
+    private static void writeBoard(ChessBoard board, ByteBuffer out) {
+        long occupied = board.occupied();
+        out.putLong(occupied);
+        int pending = -1;
+        for (; occupied != 0; occupied &= occupied - 1) {
+            int piece = board.pieceAt(Long.numberOfTrailingZeros(occupied));
+            if (pending < 0) {
+                pending = piece << 4;
+            } else {
+                out.put((byte) (pending | piece));
+                pending = -1;
+            }
+        }
+        if (pending >= 0) {
+            out.put((byte) pending);
+        }
+    }
+
+    private static void readBoard(ByteBuffer in, ChessBoard board) {
+        board.clear();
+        int nibble = 0;
+        int packed = 0;
+        for (long occupied = in.getLong(); occupied != 0; occupied &= occupied - 1) {
+            if (nibble++ % 2 == 0) {
+                packed = in.get() & 0xFF;
+            }
+            int piece = nibble % 2 == 1 ? packed >>> 4 : packed & 15;
+            if (piece >= ChessBoard.PIECE_KINDS) {
+                throw new IllegalArgumentException("Unknown piece " + piece + " in board encoding");
+            }
+            board.putPiece(Long.numberOfTrailingZeros(occupied), piece);
+        }
+    }
+
+    /**
+     * Carries a game through Gson as the Base64 text of its binary form.
+     */
+    public static final class GameAdapter extends TypeAdapter<ChessGame> {
+
+        @Override
+        public void write(JsonWriter out, ChessGame game) throws IOException {
+            if (game == null) {
+                out.nullValue();
+            } else {
+                out.value(Base64.getEncoder().encodeToString(encode(game)));
+            }
+        }
+
+        @Override
+        public ChessGame read(JsonReader in) throws IOException {
+            if (in.peek() == JsonToken.NULL) {
+                in.nextNull();
+                return null;
+            }
+            try {
+                return decode(Base64.getDecoder().decode(in.nextString()));
+            } catch (IllegalArgumentException e) {
+                throw new IOException("Malformed chess game", e);
+            }
+        }
+    }
+
+    /**
+     * Carries a board through Gson as the Base64 text of its binary form.
+     */
+    public static final class BoardAdapter extends TypeAdapter<ChessBoard> {
+
+        @Override
+        public void write(JsonWriter out, ChessBoard board) throws IOException {
+            if (board == null) {
+                out.nullValue();
+            } else {
+                out.value(Base64.getEncoder().encodeToString(encode(board)));
+            }
+        }
+
+        @Override
+        public ChessBoard read(JsonReader in) throws IOException {
+            if (in.peek() == JsonToken.NULL) {
+                in.nextNull();
+                return null;
+            }
+            try {
+                return decodeBoard(Base64.getDecoder().decode(in.nextString()));
+            } catch (IllegalArgumentException e) {
+                throw new IOException("Malformed chess board", e);
+            }
+        }
+    }
+}
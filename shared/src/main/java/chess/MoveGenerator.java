@@ -0,0 +1,321 @@
+package chess;
+
+/**
+ * Legal move filtering for one team in one position.
+ * <p>
+ * The pieces giving check and the pieces pinned to the king are found once, when the
+ * generator is built. After that the legal destinations of any piece are a few mask
+ * operations: a checked team must capture the checker or block the checking ray, a pinned
+ * piece must stay on the line through its king, and the king may only step to squares the
+ * enemy does not attack once the king itself is out of the way.
+ * <p>
+ * Castling reuses the same enemy attack map for the squares the king crosses. En passant is
+ * the one move the masks cannot judge, since it empties a square off the moving piece's path,
+ * so it is checked directly against the attackers of the king with both pawns moved.
+ * <p>
+ * A generator describes the board as it was when it was built; it must be discarded once
+ * the board changes (see {@link ChessBoard#getVersion()}).
+ */
+final class MoveGenerator {
+
+    private static final ChessPiece.PieceType[] TYPES = ChessPiece.PieceType.values();
+    private static final ChessPiece.PieceType[] PROMOTIONS = {
+            ChessPiece.PieceType.QUEEN, ChessPiece.PieceType.ROOK,
+            ChessPiece.PieceType.BISHOP, ChessPiece.PieceType.KNIGHT
+    };
+
+    private final ChessBoard board;
+    private final int version;
+    private final ChessGame.TeamColor team;
+    private final ChessGame.TeamColor enemy;
+    private final int castlingRights;
+    private final int enPassant;
+    private final int kingSquare;
+    private final long checkers;
+    private final long checkMask;
+    private final long pinned;
+    private long enemyAttacks;
+    private boolean enemyAttacksReady;
+
+    /**
+     * @param board          the position to generate for
+     * @param team           the team whose moves are being generated; it may have at most one king
+     * @param castlingRights the game's castling rights, as {@link ChessGame} castling bits
+     * @param enPassant      the square a pawn may capture onto en passant, or -1 if none
+     */
+    MoveGenerator(ChessBoard board, ChessGame.TeamColor team, int castlingRights, int enPassant) {
+        this.board = board;
+        this.version = board.getVersion();
+        this.team = team;
+        this.castlingRights = castlingRights;
+        this.enPassant = enPassant;
+        this.enemy = team == ChessGame.TeamColor.WHITE ? ChessGame.TeamColor.BLACK : ChessGame.TeamColor.WHITE;
+        long king = board.pieces(team, ChessPiece.PieceType.KING);
+        if (king == 0) {
+            kingSquare = -1;
+            checkers = 0L;
+            checkMask = -1L;
+            pinned = 0L;
+            return;
+        }
+        kingSquare = Long.numberOfTrailingZeros(king);
+        long occupied = board.occupied();
+        checkers = board.attackers(kingSquare, enemy, occupied);
+        if (checkers == 0) {
+            checkMask = -1L;
+        } else if (Long.bitCount(checkers) == 1) {
+            checkMask = checkers | Bitboards.BETWEEN[kingSquare][Long.numberOfTrailingZeros(checkers)];
+        } else {
+            checkMask = 0L;
+        }
+
+        long queens = board.pieces(enemy, ChessPiece.PieceType.QUEEN);
+        long snipers = (Bitboards.rookAttacks(kingSquare, 0L)
+                & (board.pieces(enemy, ChessPiece.PieceType.ROOK) | queens))
+                | (Bitboards.bishopAttacks(kingSquare, 0L)
+                & (board.pieces(enemy, ChessPiece.PieceType.BISHOP) | queens));
+        long own = board.occupancy(team);
+        long pins = 0L;
+        for (; snipers != 0; snipers &= snipers - 1) {
+            long blockers = Bitboards.BETWEEN[kingSquare][Long.numberOfTrailingZeros(snipers)] & occupied;
+            if (Long.bitCount(blockers) == 1) {
+                pins |= blockers & own;
+            }
+        }
+        pinned = pins;
+    }
+
+    /**
+     * @return true if this generator was built for {@code board} in its current state, with
+     * the same castling rights and en passant square
+     */
+    boolean isCurrent(ChessBoard board, int castlingRights, int enPassant) {
+        return this.board == board && version == board.getVersion()
+                && this.castlingRights == castlingRights && this.enPassant == enPassant;
+    }
+
+    boolean inCheck() {
+        return checkers != 0;
+    }
+
+    /**
+     * Returns the squares the piece on {@code from} may legally end its move on. The mask only
+     * restricts destinations; it is meant to be intersected with the piece's own movement.
+     *
+     * @param from square of a piece belonging to this generator's team
+     * @return bitboard of allowed destination squares
+     */
+    long allowedDestinations(int from) {
+        if (from == kingSquare) {
+            return ~enemyAttacks();
+        }
+        long allowed = checkMask;
+        if ((pinned & (1L << from)) != 0) {
+            allowed &= Bitboards.LINE[kingSquare][from];
+        }
+        return allowed;
+    }
+
+    /**
+     * Appends every legal move of the team to {@code moves} as {@link PackedMove packed moves}.
+     *
+     * @param count the number of moves already in the list
+     * @return the number of moves in the list afterwards
+     */
+    int generate(int[] moves, int count) {
+        for (long pieces = board.occupancy(team); pieces != 0; pieces &= pieces - 1) {
+            count = generate(Long.numberOfTrailingZeros(pieces), -1L, moves, count);
+        }
+        return count;
+    }
+
+    /**
+     * Appends only the legal captures and promotions of the team to {@code moves}.
+     *
+     * @param count the number of moves already in the list
+     * @return the number of moves in the list afterwards
+     */
+    int generateCaptures(int[] moves, int count) {
+        long enemies = board.occupancy(enemy);
+        long promotions = enemies | (team == ChessGame.TeamColor.WHITE ? 0xFF00000000000000L : 0xFFL);
+        long pawns = board.pieces(team, ChessPiece.PieceType.PAWN);
+        for (long pieces = board.occupancy(team); pieces != 0; pieces &= pieces - 1) {
+            int from = Long.numberOfTrailingZeros(pieces);
+            count = generate(from, (pawns & 1L << from) != 0 ? promotions : enemies, moves, count);
+        }
+        return count;
+    }
+
+    /**
+     * Appends the legal moves of the piece on {@code from} to {@code moves}. A pawn reaching
+     * the last rank gets one move per promotion piece.
+     *
+     * @param from  square of a piece belonging to this generator's team
+     * @param count the number of moves already in the list
+     * @return the number of moves in the list afterwards
+     */
+    int generate(int from, int[] moves, int count) {
+        return generate(from, -1L, moves, count);
+    }
+
+    private int generate(int from, long targetMask, int[] moves, int count) {
+        long targets = pseudoTargets(from) & allowedDestinations(from) & targetMask;
+        long enemies = board.occupancy(enemy);
+        boolean pawn = board.pieceAt(from) % 6 == ChessPiece.PieceType.PAWN.ordinal();
+        boolean promoting = pawn && (team == ChessGame.TeamColor.WHITE ? from >= 48 : from < 16);
+        for (; targets != 0; targets &= targets - 1) {
+            int to = Long.numberOfTrailingZeros(targets);
+            int flags = (enemies & 1L << to) != 0 ? PackedMove.CAPTURE : 0;
+            if (promoting) {
+                for (ChessPiece.PieceType promotion : PROMOTIONS) {
+                    moves[count++] = PackedMove.of(from, to, promotion, flags);
+                }
+            } else {
+                moves[count++] = PackedMove.of(from, to) | flags;
+            }
+        }
+        if (pawn && canCaptureEnPassant(from)) {
+            moves[count++] = PackedMove.of(from, enPassant) | PackedMove.CAPTURE;
+        }
+        if (from == kingSquare && targetMask == -1L) {
+            count = addCastling(moves, count);
+        }
+        return count;
+    }
+
+    /**
+     * A king that is not in check may castle towards a rook it still has the right to castle
+     * with, if every square between them is empty and the king does not cross or land on an
+     * attacked square. Rights are not trusted on their own: the king must also stand on its
+     * home square, as a game loaded with stale rights may not have it there.
+     */
+    private int addCastling(int[] moves, int count) {
+        int rights = castlingRights >> (team == ChessGame.TeamColor.WHITE ? 0 : 2) & 3;
+        if (rights == 0 || checkers != 0 || kingSquare != (team == ChessGame.TeamColor.WHITE ? 4 : 60)) {
+            return count;
+        }
+        long rooks = board.pieces(team, ChessPiece.PieceType.ROOK);
+        long occupied = board.occupied();
+        if ((rights & 1) != 0 && (rooks & 1L << (kingSquare + 3)) != 0
+                && (Bitboards.BETWEEN[kingSquare][kingSquare + 3] & occupied) == 0
+                && (enemyAttacks() & (3L << (kingSquare + 1))) == 0) {
+            moves[count++] = PackedMove.of(kingSquare, kingSquare + 2);
+        }
+        if ((rights & 2) != 0 && (rooks & 1L << (kingSquare - 4)) != 0
+                && (Bitboards.BETWEEN[kingSquare][kingSquare - 4] & occupied) == 0
+                && (enemyAttacks() & (3L << (kingSquare - 2))) == 0) {
+            moves[count++] = PackedMove.of(kingSquare, kingSquare - 2);
+        }
+        return count;
+    }
+
+    /**
+     * Checks an en passant capture by the pawn on {@code from} directly: with the capturing
+     * pawn moved and the captured pawn gone, no enemy piece may attack the king. This also
+     * catches the case the pin masks miss, where both pawns stand between the king and an
+     * enemy rook on the same rank.
+     */
+    private boolean canCaptureEnPassant(int from) {
+        if (enPassant < 0 || (Bitboards.PAWN_ATTACKS[team.ordinal()][from] & 1L << enPassant) == 0) {
+            return false;
+        }
+        if (kingSquare < 0) {
+            return true;
+        }
+        long captured = 1L << (team == ChessGame.TeamColor.WHITE ? enPassant - 8 : enPassant + 8);
+        long occupied = board.occupied() ^ 1L << from ^ 1L << enPassant ^ captured;
+        return (board.attackers(kingSquare, enemy, occupied) & ~captured) == 0;
+    }
+
+    /**
+     * @return true as soon as any piece of the team is found to have a legal move
+     */
+    boolean hasLegalMove() {
+        long others = board.occupancy(team);
+        if (kingSquare >= 0) {
+            if ((pseudoTargets(kingSquare) & allowedDestinations(kingSquare)) != 0) {
+                return true;
+            }
+            if (Long.bitCount(checkers) > 1) {
+                return false;
+            }
+            others &= ~(1L << kingSquare);
+        }
+        for (long pieces = others; pieces != 0; pieces &= pieces - 1) {
+            int from = Long.numberOfTrailingZeros(pieces);
+            if ((pseudoTargets(from) & allowedDestinations(from)) != 0) {
+                return true;
+            }
+        }
+        // Castling never needs checking here: if it is legal, so is the king's step towards the rook.
+        if (enPassant >= 0) {
+            for (long pawns = board.pieces(team, ChessPiece.PieceType.PAWN)
+                    & Bitboards.PAWN_ATTACKS[enemy.ordinal()][enPassant]; pawns != 0; pawns &= pawns - 1) {
+                if (canCaptureEnPassant(Long.numberOfTrailingZeros(pawns))) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @return every square the piece on {@code from} moves to, ignoring whether its king is left in check
+     */
+    private long pseudoTargets(int from) {
+        long occupied = board.occupied();
+        long notOwn = ~board.occupancy(team);
+        return switch (TYPES[board.pieceAt(from) % 6]) {
+            case KING -> Bitboards.KING_ATTACKS[from] & notOwn;
+            case QUEEN -> Bitboards.queenAttacks(from, occupied) & notOwn;
+            case BISHOP -> Bitboards.bishopAttacks(from, occupied) & notOwn;
+            case KNIGHT -> Bitboards.KNIGHT_ATTACKS[from] & notOwn;
+            case ROOK -> Bitboards.rookAttacks(from, occupied) & notOwn;
+            case PAWN -> pawnTargets(from, occupied);
+        };
+    }
+
+    private long pawnTargets(int from, long occupied) {
+        long bit = 1L << from;
+        long captures = Bitboards.PAWN_ATTACKS[team.ordinal()][from] & board.occupancy(enemy);
+        long single;
+        long twoSquares = 0L;
+        if (team == ChessGame.TeamColor.WHITE) {
+            single = (bit << 8) & ~occupied;
+            if (from >= 8 && from < 16) {
+                twoSquares = (single << 8) & ~occupied;
+            }
+        } else {
+            single = (bit >>> 8) & ~occupied;
+            if (from >= 48 && from < 56) {
+                twoSquares = (single >>> 8) & ~occupied;
+            }
+        }
+        return captures | single | twoSquares;
+    }
+
+    /**
+     * @return every square an enemy piece attacks with this team's king lifted off the board,
+     * computed on first use
+     */
+    private long enemyAttacks() {
+        if (!enemyAttacksReady) {
+            long occupied = board.occupied() & ~(1L << kingSquare);
+            long attacks = 0L;
+            for (long pieces = board.occupancy(enemy); pieces != 0; pieces &= pieces - 1) {
+                int from = Long.numberOfTrailingZeros(pieces);
+                attacks |= switch (TYPES[board.pieceAt(from) % 6]) {
+                    case KING -> Bitboards.KING_ATTACKS[from];
+                    case QUEEN -> Bitboards.queenAttacks(from, occupied);
+                    case BISHOP -> Bitboards.bishopAttacks(from, occupied);
+                    case KNIGHT -> Bitboards.KNIGHT_ATTACKS[from];
+                    case ROOK -> Bitboards.rookAttacks(from, occupied);
+                    case PAWN -> Bitboards.PAWN_ATTACKS[enemy.ordinal()][from];
+                };
+            }
+            enemyAttacks = attacks;
+            enemyAttacksReady = true;
+        }
+        return enemyAttacks;
+    }
+}
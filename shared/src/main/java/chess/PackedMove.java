@@ -0,0 +1,70 @@
+package chess;
+
+/**
+ * Moves packed into a single {@code int}, used by move generation and search so that listing
+ * and playing moves allocates nothing. {@link ChessMove} objects are only built when a move
+ * leaves through the public API.
+ * <p>
+ * Layout: from square (bits 0-5), to square (6-11), promotion piece as
+ * {@code PieceType.ordinal() + 1} or 0 for none (12-14), then flag bits. Squares are bitboard
+ * squares, 0 = a1 and 63 = h8.
+ */
+public final class PackedMove {
+
+    /** Enough room for the legal moves of any reachable position. */
+    public static final int MAX_MOVES = 256;
+    /** Set on moves that take a piece. */
+    public static final int CAPTURE = 1 << 15;
+
+    private static final ChessPiece.PieceType[] TYPES = ChessPiece.PieceType.values();
+
+    private PackedMove() {
+    }
+
+    public static int of(int from, int to) {
+        return from | to << 6;
+    }
+
+    public static int of(int from, int to, ChessPiece.PieceType promotion, int flags) {
+        return from | to << 6 | (promotion == null ? 0 : (promotion.ordinal() + 1) << 12) | flags;
+    }
+
+    public static int from(int move) {
+        return move & 63;
+    }
+
+    public static int to(int move) {
+        return move >>> 6 & 63;
+    }
+
+    /**
+     * @return the piece a pawn promotes to, or null if the move is not a promotion
+     */
+    public static ChessPiece.PieceType promotion(int move) {
+        int promotion = move >>> 12 & 7;
+        return promotion == 0 ? null : TYPES[promotion - 1];
+    }
+
+    public static boolean isCapture(int move) {
+        return (move & CAPTURE) != 0;
+    }
+
+    /**
+     * @return the move with its flags cleared, for comparing moves by squares and promotion only
+     */
+    public static int withoutFlags(int move) {
+        return move & 0x7FFF;
+    }
+
+    public static ChessMove toChessMove(int move) {
+        return new ChessMove(ChessBoard.position(from(move)), ChessBoard.position(to(move)), promotion(move));
+    }
+
+    /**
+     * @return the packed form of a move, without flags
+     */
+    public static int fromChessMove(ChessMove move) {
+        return of(ChessBoard.square(move.getStartPosition()), ChessBoard.square(move.getEndPosition()),
+                move.getPromotionPiece(), 0);
+    }
+}
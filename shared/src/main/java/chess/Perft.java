@@ -0,0 +1,278 @@
+package chess;
+
+import chess.notation.Uci;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Serial;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Perft ("performance test") counts the leaf nodes of the legal move tree to a fixed depth.
+ * The counts for well-known positions are published, so a mismatch points straight at a move
+ * generation bug, and the time taken measures the generator's throughput.
+ * <p>
+ * Moves are listed as {@link PackedMove packed moves} by {@link ChessGame#legalMoves(int[])}, the
+ * generator behind {@link ChessGame#validMoves}, and played with {@link ChessGame#doMove(int)} and
+ * {@link ChessGame#undoMove}, the same path {@link ChessGame#makeMove} uses. The game is searched in
+ * place and the move lists are reused, so the walk allocates nothing per node.
+ * <p>
+ * The parallel entry points split the tree across a {@link ForkJoinPool}. Every task owns its
+ * own copy of the game, so workers share nothing but the immutable attack tables.
+ * <p>
+ * Run {@code java chess.Perft [-p] [depth]} to check the bundled suite, or
+ * {@code java chess.Perft [-p] depth "fen"} to print the divide of one position; {@code -p}
+ * counts on every core.
+ */
+public final class Perft {
+
+    private static final String SUITE = "perft.epd";
+    /** Subtrees this shallow are counted by one worker; splitting them costs more than it saves. */
+    private static final int SERIAL_DEPTH = 4;
+
+    private Perft() {
+    }
+
+    /**
+     * A suite position and its published node counts, {@code counts[d - 1]} being the count at depth d.
+     */
+    public record Entry(String fen, long[] counts) {
+    }
+
+    /**
+     * @return the number of leaf nodes {@code depth} plies below the current position
+     */
+    public static long perft(ChessGame game, int depth) {
+        return depth == 0 ? 1 : perft(game, depth, new int[depth][PackedMove.MAX_MOVES]);
+    }
+
+    /**
+     * @param lists one move list per remaining ply, reused across the whole walk
+     */
+    private static long perft(ChessGame game, int depth, int[][] lists) {
+        int[] moves = lists[depth - 1];
+        int count = game.legalMoves(moves);
+        if (depth == 1) {
+            return count;
+        }
+        long nodes = 0;
+        for (int i = 0; i < count; i++) {
+            game.doMove(moves[i]);
+            nodes += perft(game, depth - 1, lists);
+            game.undoMove();
+        }
+        return nodes;
+    }
+
+    /**
+     * Splits a perft count by root move, which narrows a wrong total down to the move under
+     * which it goes wrong.
+     *
+     * @return each legal root move, in generation order, with the leaf count beneath it
+     * @throws IllegalArgumentException if {@code depth} is less than 1, as there is then no
+     * root move to split by
+     */
+    public static Map<ChessMove, Long> divide(ChessGame game, int depth) {
+        requireDivideDepth(depth);
+        int[] moves = new int[PackedMove.MAX_MOVES];
+        int count = game.legalMoves(moves);
+        Map<ChessMove, Long> counts = new LinkedHashMap<>();
+        for (int i = 0; i < count; i++) {
+            game.doMove(moves[i]);
+            counts.put(PackedMove.toChessMove(moves[i]), perft(game, depth - 1));
+            game.undoMove();
+        }
+        return counts;
+    }
+
+    private static void requireDivideDepth(int depth) {
+        if (depth < 1) {
+            throw new IllegalArgumentException("Divide needs a depth of at least 1, not " + depth);
+        }
+    }
+
+    /**
+     * Counts the same nodes as {@link #perft} with the work spread over {@code pool}. The game
+     * passed in is not modified.
+     */
+    public static long parallelPerft(ChessGame game, int depth, ForkJoinPool pool) {
+        return pool.invoke(new PerftTask(new ChessGame(game), depth));
+    }
+
+    /**
+     * Runs perft on many positions at once, for checking a generator change against a large
+     * position set. The positions are counted concurrently and each is itself split.
+     *
+     * @return the node count for each game, in the order given
+     */
+    public static long[] parallelPerft(List<ChessGame> games, int depth, ForkJoinPool pool) {
+        List<PerftTask> tasks = new ArrayList<>(games.size());
+        for (ChessGame game : games) {
+            tasks.add(new PerftTask(new ChessGame(game), depth));
+        }
+        pool.invoke(ForkJoinTask.adapt(() -> ForkJoinTask.invokeAll(tasks)));
+        long[] counts = new long[tasks.size()];
+        for (int i = 0; i < counts.length; i++) {
+            counts[i] = tasks.get(i).join();
+        }
+        return counts;
+    }
+
+    /**
+     * Perft of a game this task owns. Deep nodes fork one child per legal move, each on its
+     * own copy of the game with that move played; shallow ones are counted in place.
+     */
+    private static final class PerftTask extends RecursiveTask<Long> {
+
+        @Serial
+        private static final long serialVersionUID = 1L;
+
+        private final transient ChessGame game;
+        private final int depth;
+
+        PerftTask(ChessGame game, int depth) {
+            this.game = game;
+            this.depth = depth;
+        }
+
+        @Override
+        protected Long compute() {
+            if (depth <= SERIAL_DEPTH) {
+                return perft(game, depth);
+            }
+            int[] moves = new int[PackedMove.MAX_MOVES];
+            int count = game.legalMoves(moves);
+            List<PerftTask> children = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                ChessGame child = new ChessGame(game);
+                child.doMove(moves[i]);
+                children.add(new PerftTask(child, depth - 1));
+            }
+            long nodes = 0;
+            for (PerftTask child : invokeAll(children)) {
+                nodes += child.join();
+            }
+            return nodes;
+        }
+    }
+
+    /**
+     * @return every legal move for the team whose turn it is
+     */
+    static List<ChessMove> legalMoves(ChessGame game) {
+        int[] moves = new int[PackedMove.MAX_MOVES];
+        int count = game.legalMoves(moves);
+        List<ChessMove> list = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            list.add(PackedMove.toChessMove(moves[i]));
+        }
+        return list;
+    }
+
+    /**
+     * Reads the bundled suite. Each line is a FEN followed by {@code ;D<depth> <count>} fields.
+     */
+    public static List<Entry> loadSuite() throws IOException {
+        List<Entry> entries = new ArrayList<>();
+        InputStream in = Perft.class.getResourceAsStream(SUITE);
+        if (in == null) {
+            throw new IOException("Missing perft suite " + SUITE);
+        }
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.isBlank()) {
+                    continue;
+                }
+                String[] fields = line.split(";");
+                long[] counts = new long[fields.length - 1];
+                for (int i = 1; i < fields.length; i++) {
+                    String[] depthCount = fields[i].trim().split("\\s+");
+                    counts[Integer.parseInt(depthCount[0].substring(1)) - 1] = Long.parseLong(depthCount[1]);
+                }
+                entries.add(new Entry(fields[0].trim(), counts));
+            }
+        }
+        return entries;
+    }
+
+    public static void main(String[] args) throws IOException {
+        boolean parallel = args.length > 0 && args[0].equals("-p");
+        if (parallel) {
+            args = Arrays.copyOfRange(args, 1, args.length);
+            System.out.printf("parallel on %d worker(s)%n", ForkJoinPool.commonPool().getParallelism());
+        }
+        int maxDepth = args.length > 0 ? Integer.parseInt(args[0]) : 5;
+        if (args.length > 1) {
+            ChessGame game = ChessGame.fromFen(args[1]);
+            long start = System.nanoTime();
+            long total = 0;
+            Map<ChessMove, Long> counts = parallel ? parallelDivide(game, maxDepth) : divide(game, maxDepth);
+            for (Map.Entry<ChessMove, Long> entry : counts.entrySet()) {
+                System.out.printf("%s: %d%n", Uci.format(entry.getKey()), entry.getValue());
+                total += entry.getValue();
+            }
+            report("total", total, System.nanoTime() - start);
+            return;
+        }
+
+        long allNodes = 0;
+        long allTime = 0;
+        int mismatches = 0;
+        for (Entry entry : loadSuite()) {
+            System.out.println(entry.fen());
+            ChessGame game = ChessGame.fromFen(entry.fen());
+            for (int depth = 1; depth <= Math.min(maxDepth, entry.counts().length); depth++) {
+                long start = System.nanoTime();
+                long nodes = parallel ? parallelPerft(game, depth, ForkJoinPool.commonPool()) : perft(game, depth);
+                long elapsed = System.nanoTime() - start;
+                allNodes += nodes;
+                allTime += elapsed;
+                long expected = entry.counts()[depth - 1];
+                if (nodes != expected) {
+                    mismatches++;
+                }
+                report(String.format("  depth %d %s", depth, nodes == expected ? "ok      " : "MISMATCH"),
+                        nodes, elapsed);
+                if (nodes != expected) {
+                    System.out.printf("    expected %d%n", expected);
+                }
+            }
+        }
+        report("suite", allNodes, allTime);
+        System.out.printf("%d mismatch(es)%n", mismatches);
+    }
+
+    private static Map<ChessMove, Long> parallelDivide(ChessGame game, int depth) {
+        requireDivideDepth(depth);
+        int[] moves = new int[PackedMove.MAX_MOVES];
+        int count = game.legalMoves(moves);
+        List<ChessGame> children = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            ChessGame child = new ChessGame(game);
+            child.doMove(moves[i]);
+            children.add(child);
+        }
+        long[] nodes = parallelPerft(children, depth - 1, ForkJoinPool.commonPool());
+        Map<ChessMove, Long> counts = new LinkedHashMap<>();
+        for (int i = 0; i < count; i++) {
+            counts.put(PackedMove.toChessMove(moves[i]), nodes[i]);
+        }
+        return counts;
+    }
+
+    private static void report(String label, long nodes, long nanos) {
+        System.out.printf("%s %,14d nodes %,9d ms %,12d nps%n", label, nodes, nanos / 1_000_000,
+                nanos == 0 ? 0 : nodes * 1_000_000_000L / nanos);
+    }
+}
@@ -0,0 +1,47 @@
+package chess;
+
+import java.util.SplittableRandom;
+
+/**
+ * Random keys for Zobrist hashing of positions. A position's key is the XOR of the key for
+ * every (piece, square) pair on the board, plus {@link #BLACK_TO_MOVE} when it is black's turn,
+ * so moving a piece updates the key with two XORs instead of rehashing the board. The game
+ * adds the key for its castling rights and, when a pawn can be taken en passant, the key for
+ * that file.
+ * <p>
+ * The keys come from a fixed seed so that every JVM, client and server alike, produces the
+ * same key for the same position.
+ */
+final class Zobrist {
+
+    static final long[][] PIECE_SQUARE = new long[ChessBoard.PIECE_KINDS][64];
+    static final long BLACK_TO_MOVE;
+    /** Keys for every combination of the four castling rights, indexed by the rights' bits. */
+    static final long[] CASTLING = new long[16];
+    /** Keys for the file of an en passant square. */
+    static final long[] EN_PASSANT = new long[8];
+
+    static {
+        SplittableRandom random = new SplittableRandom(0x5EED_C4E55L);
+        for (long[] keys : PIECE_SQUARE) {
+            for (int square = 0; square < 64; square++) {
+                keys[square] = random.nextLong();
+            }
+        }
+        BLACK_TO_MOVE = random.nextLong();
+        long[] rights = new long[4];
+        for (int i = 0; i < rights.length; i++) {
+            rights[i] = random.nextLong();
+        }
+        for (int bits = 1; bits < CASTLING.length; bits++) {
+            int lowest = Integer.numberOfTrailingZeros(bits);
+            CASTLING[bits] = CASTLING[bits & bits - 1] ^ rights[lowest];
+        }
+        for (int file = 0; file < EN_PASSANT.length; file++) {
+            EN_PASSANT[file] = random.nextLong();
+        }
+    }
+
+    private Zobrist() {
+    }
+}
@@ -0,0 +1,384 @@
+package chess.notation;
+
+import chess.ChessGame;
+import chess.PackedMove;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Reads games from Portable Game Notation one at a time, replaying each into a
+ * {@link ChessGame}.
+ * <p>
+ * Input is read through a fixed 64 KB buffer, and the only other memory held is the current
+ * game's tags and moves, so a file of any size can be read in constant memory. Moves are
+ * matched against the legal moves of the position with {@link San}. Comments, variations,
+ * annotation glyphs and escaped lines are skipped.
+ * <p>
+ * A game with a move that cannot be read or is not legal is skipped as a whole and counted
+ * in {@link #gamesSkipped()}; reading goes on with the next game.
+ * <p>
+ * Run {@code java chess.notation.PgnReader <file.pgn>} to time reading a file.
+ */
+public final class PgnReader implements Closeable {
+
+    private static final String START = "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 1";
+    private static final int EOF = -1;
+
+    private final ReadableByteChannel channel;
+    private final ByteBuffer buffer = ByteBuffer.allocate(1 << 16);
+    private final Map<String, String> tags = new HashMap<>();
+    private final Token token = new Token();
+    private final int[] legal = new int[PackedMove.MAX_MOVES];
+    private int[] moves = new int[256];
+    private int moveCount;
+    private String result;
+    private int pushedBack = EOF;
+    private long gamesRead;
+    private long gamesSkipped;
+    private long movesRead;
+
+    public PgnReader(ReadableByteChannel channel) {
+        this.channel = channel;
+        buffer.flip();
+    }
+
+    public static PgnReader open(Path path) throws IOException {
+        return new PgnReader(FileChannel.open(path));
+    }
+
+    /**
+     * Reads the next readable game, setting up {@code game} from its FEN tag or the starting
+     * position and playing its moves. A game with a result other than "*" is left ended.
+     *
+     * @param game the game to replay into; its previous state is discarded
+     * @return false if there are no more games
+     */
+    public boolean next(ChessGame game) throws IOException {
+        while (true) {
+            tags.clear();
+            moveCount = 0;
+            result = "*";
+            int c = skipSpace();
+            if (c == EOF) {
+                return false;
+            }
+            while (c == '[') {
+                readTag();
+                c = skipSpace();
+            }
+            unread(c);
+            boolean readable = setUp(game);
+            readable = readMoves(game, readable);
+            if (readable) {
+                gamesRead++;
+                movesRead += moveCount;
+                if (!result.equals("*")) {
+                    game.endGame();
+                }
+                return true;
+            }
+            gamesSkipped++;
+        }
+    }
+
+    /**
+     * @return the value of a tag of the game last read, or null if it has none
+     */
+    public String tag(String name) {
+        return tags.get(name);
+    }
+
+    /**
+     * @return the result of the game last read: "1-0", "0-1", "1/2-1/2" or "*"
+     */
+    public String result() {
+        return result;
+    }
+
+    /**
+     * @return the number of moves in the game last read
+     */
+    public int moveCount() {
+        return moveCount;
+    }
+
+    /**
+     * @return a move of the game last read, as a {@link PackedMove packed move}
+     */
+    public int move(int index) {
+        if (index >= moveCount) {
+            throw new IndexOutOfBoundsException(index);
+        }
+        return moves[index];
+    }
+
+    public long gamesRead() {
+        return gamesRead;
+    }
+
+    public long gamesSkipped() {
+        return gamesSkipped;
+    }
+
+    public long movesRead() {
+        return movesRead;
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    private boolean setUp(ChessGame game) {
+        String fen = tags.get("FEN");
+        try {
+            game.setFen(fen == null ? START : fen);
+            return true;
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Reads movetext up to the game's result, or up to the next game's tags if the result is
+     * missing; brackets never appear in movetext outside comments. Once a move fails to read,
+     * the rest of the movetext is only skipped.
+     *
+     * @return false if a move could not be read
+     */
+    private boolean readMoves(ChessGame game, boolean readable) throws IOException {
+        while (true) {
+            int c = skipSpace();
+            if (c == EOF) {
+                return readable;
+            }
+            if (c == '[') {
+                unread(c);
+                return readable;
+            }
+            switch (c) {
+                case '{' -> skipPast('}');
+                case ';', '%' -> skipPast('\n');
+                case '(' -> skipVariation();
+                case '$' -> readToken(c);
+                default -> {
+                    readToken(c);
+                    if (isResult()) {
+                        return readable;
+                    }
+                    if (readable) {
+                        readable = playToken(game);
+                    }
+                }
+            }
+        }
+    }
+
+    private boolean isResult() {
+        String found = token.equals("1-0") ? "1-0" : token.equals("0-1") ? "0-1"
+                : token.equals("1/2-1/2") ? "1/2-1/2" : token.equals("*") ? "*" : null;
+        if (found != null) {
+            result = found;
+        }
+        return found != null;
+    }
+
+    /**
+     * Plays the SAN move in the current token, after any move number in front of it.
+     */
+    private boolean playToken(ChessGame game) {
+        int start = 0;
+        if (token.charAt(0) != '0') {
+            while (start < token.length() && Character.isDigit(token.charAt(start))) {
+                start++;
+            }
+            while (start < token.length() && token.charAt(start) == '.') {
+                start++;
+            }
+        }
+        if (start == token.length()) {
+            return true;
+        }
+        int move = San.parse(game, token, start, token.length(), legal);
+        if (move < 0) {
+            return false;
+        }
+        if (moveCount == moves.length) {
+            moves = Arrays.copyOf(moves, moveCount * 2);
+        }
+        moves[moveCount++] = move;
+        game.doMove(move);
+        return true;
+    }
+
+    private void readTag() throws IOException {
+        int c = skipSpace();
+        StringBuilder name = new StringBuilder();
+        while (c != EOF && c != '"' && c != ']' && !Character.isWhitespace(c)) {
+            name.append((char) c);
+            c = read();
+        }
+        while (c != EOF && c != '"' && c != ']') {
+            c = read();
+        }
+        token.clear();
+        if (c == '"') {
+            for (c = read(); c != EOF && c != '"'; c = read()) {
+                token.append(c == '\\' ? read() : c);
+            }
+            skipPast(']');
+        }
+        tags.put(name.toString(), new String(token.bytes, 0, token.length, StandardCharsets.UTF_8));
+    }
+
+    private void readToken(int c) throws IOException {
+        token.clear();
+        while (c != EOF && !Character.isWhitespace(c) && "{}();[".indexOf(c) < 0) {
+            token.append(c);
+            c = read();
+        }
+        unread(c);
+    }
+
+    private void skipVariation() throws IOException {
+        int depth = 1;
+        while (depth > 0) {
+            int c = read();
+            switch (c) {
+                case EOF -> depth = 0;
+                case '(' -> depth++;
+                case ')' -> depth--;
+                case '{' -> skipPast('}');
+                case ';' -> skipPast('\n');
+                default -> {
+                }
+            }
+        }
+    }
+
+    private void skipPast(char end) throws IOException {
+        int c;
+        do {
+            c = read();
+        } while (c != EOF && c != end);
+    }
+
+    private int skipSpace() throws IOException {
+        int c;
+        do {
+            c = read();
+        } while (c != EOF && Character.isWhitespace(c));
+        return c;
+    }
+
+    private void unread(int c) {
+        pushedBack = c;
+    }
+
+    private int read() throws IOException {
+        int c;
+        if (pushedBack != EOF) {
+            c = pushedBack;
+            pushedBack = EOF;
+        } else {
+            while (!buffer.hasRemaining()) {
+                buffer.clear();
+                int read = channel.read(buffer);
+                buffer.flip();
+                if (read < 0) {
+                    return EOF;
+                }
+            }
+            c = buffer.get() & 0xFF;
+        }
+        return c;
+    }
+
+    /**
+     * A reusable growable byte buffer that reads as ASCII characters, so tokens can be handed
+     * to {@link San} without building strings.
+     */
+    private static final class Token implements CharSequence {
+
+        private byte[] bytes = new byte[64];
+        private int length;
+
+        void clear() {
+            length = 0;
+        }
+
+        void append(int c) {
+            if (length == bytes.length) {
+                bytes = Arrays.copyOf(bytes, length * 2);
+            }
+            bytes[length++] = (byte) c;
+        }
+
+        boolean equals(String text) {
+            if (text.length() != length) {
+                return false;
+            }
+            for (int i = 0; i < length; i++) {
+                if (bytes[i] != text.charAt(i)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        @Override
+        public int length() {
+            return length;
+        }
+
+        @Override
+        public char charAt(int index) {
+            return (char) (bytes[index] & 0xFF);
+        }
+
+        @Override
+        public CharSequence subSequence(int start, int end) {
+            return toString().substring(start, end);
+        }
+
+        @Override
+        public String toString() {
+            return new String(bytes, 0, length, StandardCharsets.ISO_8859_1);
+        }
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 1) {
+            System.err.println("Usage: java chess.notation.PgnReader <file.pgn>");
+            return;
+        }
+        ChessGame game = new ChessGame();
+        long start = System.nanoTime();
+        try (PgnReader reader = open(Path.of(args[0]))) {
+            while (reader.next(game)) {
+                if (reader.gamesRead() % 100_000 == 0) {
+                    report(reader, System.nanoTime() - start);
+                }
+            }
+            if (reader.gamesRead() % 100_000 != 0) {
+                report(reader, System.nanoTime() - start);
+            }
+        }
+    }
+
+    private static void report(PgnReader reader, long nanos) {
+        double seconds = Math.max(nanos, 1) / 1e9;
+        System.out.printf("%,d games (%,d skipped), %,d moves in %.1f s: %,.0f games/s, %,.0f moves/s%n",
+                reader.gamesRead(), reader.gamesSkipped(), reader.movesRead(), seconds,
+                reader.gamesRead() / seconds, reader.movesRead() / seconds);
+    }
+}
@@ -0,0 +1,231 @@
+package chess.notation;
+
+import chess.ChessGame;
+import chess.ChessMove;
+import chess.ChessPiece;
+import chess.PackedMove;
+
+/**
+ * Standard Algebraic Notation, as used in PGN: "e4", "Nbd7", "exd6", "O-O", "e8=Q+".
+ * <p>
+ * A SAN move only names what is needed to tell it apart from the other legal moves, so it is
+ * read by matching it against the legal moves of the position it is played in, and written by
+ * comparing it with them.
+ */
+public final class San {
+
+    // Piece letters in PieceType order, and the types themselves, so no lookup allocates.
+    private static final String PIECE_LETTERS = "KQBNRP";
+    private static final ChessPiece.PieceType[] TYPES = ChessPiece.PieceType.values();
+
+    private San() {
+    }
+
+    /**
+     * Finds the legal move a SAN token stands for. Check and annotation suffixes are ignored,
+     * castling may be written with letter O or digit 0, and the "=" before a promotion piece is
+     * optional.
+     *
+     * @param game  the game to play the move in; it is not changed
+     * @param san   the text holding the token
+     * @param start index of the token's first character
+     * @param end   index just past the token's last character
+     * @param moves scratch list of {@link PackedMove#MAX_MOVES} moves, overwritten
+     * @return the move as a {@link PackedMove packed move}, or -1 if the token is malformed or
+     * matches no legal move or more than one
+     */
+    public static int parse(ChessGame game, CharSequence san, int start, int end, int[] moves) {
+        while (end > start && "+#!?".indexOf(san.charAt(end - 1)) >= 0) {
+            end--;
+        }
+        int length = end - start;
+        if (length < 2) {
+            return -1;
+        }
+        int count = game.legalMoves(moves);
+        char first = san.charAt(start);
+        if (first == 'O' || first == '0') {
+            return parseCastling(game, san, start, length, moves, count);
+        }
+
+        ChessPiece.PieceType type = ChessPiece.PieceType.PAWN;
+        int index = PIECE_LETTERS.indexOf(first);
+        if (index >= 0 && index < 5) {
+            type = TYPES[index];
+            start++;
+        }
+        ChessPiece.PieceType promotion = null;
+        if (type == ChessPiece.PieceType.PAWN && end - start > 2) {
+            int promoted = PIECE_LETTERS.indexOf(Character.toUpperCase(san.charAt(end - 1)));
+            if (promoted > 0 && promoted < 5 && Character.isLetter(san.charAt(end - 1))
+                    && !isSquare(san, end - 2)) {
+                promotion = TYPES[promoted];
+                end -= san.charAt(end - 2) == '=' ? 2 : 1;
+            }
+        }
+        if (end - start < 2 || !isSquare(san, end - 2)) {
+            return -1;
+        }
+        int to = square(san.charAt(end - 2), san.charAt(end - 1));
+
+        int fromFile = -1;
+        int fromRank = -1;
+        for (int i = start; i < end - 2; i++) {
+            char c = san.charAt(i);
+            if (c >= 'a' && c <= 'h') {
+                fromFile = c - 'a';
+            } else if (c >= '1' && c <= '8') {
+                fromRank = c - '1';
+            } else if (c != 'x' && c != ':' && c != '-') {
+                return -1;
+            }
+        }
+
+        int found = -1;
+        for (int i = 0; i < count; i++) {
+            int move = moves[i];
+            int from = PackedMove.from(move);
+            if (PackedMove.to(move) == to && PackedMove.promotion(move) == promotion
+                    && (fromFile < 0 || (from & 7) == fromFile) && (fromRank < 0 || from >> 3 == fromRank)
+                    && game.getBoard().getPiece(from).getPieceType() == type) {
+                if (found >= 0) {
+                    return -1;
+                }
+                found = move;
+            }
+        }
+        return found;
+    }
+
+    /**
+     * Same as {@link #parse(ChessGame, CharSequence, int, int, int[])} for a whole string.
+     */
+    public static int parse(ChessGame game, CharSequence san) {
+        return parse(game, san, 0, san.length(), new int[PackedMove.MAX_MOVES]);
+    }
+
+    /**
+     * Same as {@link #parse(ChessGame, CharSequence)}, for callers that want a {@link ChessMove}.
+     *
+     * @throws IllegalArgumentException if the text is not exactly one legal move
+     */
+    public static ChessMove parseMove(ChessGame game, CharSequence san) {
+        int move = parse(game, san);
+        if (move < 0) {
+            throw new IllegalArgumentException("Not a legal move: " + san);
+        }
+        return PackedMove.toChessMove(move);
+    }
+
+    /**
+     * Writes a legal move of the team to move in SAN, naming the start file, rank or both only
+     * when another piece of the same kind could move to the same square, and marking check with
+     * "+" and checkmate with "#". The move is played and taken back to find out which; the game
+     * is left as it was.
+     *
+     * @throws IllegalArgumentException if the move is not legal in the game
+     */
+    public static String format(ChessGame game, ChessMove move) {
+        return format(game, PackedMove.fromChessMove(move));
+    }
+
+    /**
+     * Same as {@link #format(ChessGame, ChessMove)} for a {@link PackedMove packed move}.
+     */
+    public static String format(ChessGame game, int move) {
+        int[] moves = new int[PackedMove.MAX_MOVES];
+        int count = game.legalMoves(moves);
+        int wanted = PackedMove.withoutFlags(move);
+        int legal = -1;
+        for (int i = 0; i < count && legal < 0; i++) {
+            if (PackedMove.withoutFlags(moves[i]) == wanted) {
+                legal = moves[i];
+            }
+        }
+        if (legal < 0) {
+            throw new IllegalArgumentException("Not a legal move: " + Uci.format(move));
+        }
+
+        int from = PackedMove.from(legal);
+        int to = PackedMove.to(legal);
+        ChessPiece.PieceType type = game.getBoard().getPiece(from).getPieceType();
+        boolean capture = PackedMove.isCapture(legal);
+        StringBuilder san = new StringBuilder(8);
+        if (type == ChessPiece.PieceType.KING && (to - from == 2 || from - to == 2)) {
+            san.append(to > from ? "O-O" : "O-O-O");
+        } else if (type == ChessPiece.PieceType.PAWN) {
+            if (capture) {
+                san.append((char) ('a' + (from & 7))).append('x');
+            }
+            san.append(Uci.squareName(to));
+            ChessPiece.PieceType promotion = PackedMove.promotion(legal);
+            if (promotion != null) {
+                san.append('=').append(PIECE_LETTERS.charAt(promotion.ordinal()));
+            }
+        } else {
+            san.append(PIECE_LETTERS.charAt(type.ordinal()));
+            boolean rivals = false;
+            boolean sameFile = false;
+            boolean sameRank = false;
+            for (int i = 0; i < count; i++) {
+                int other = PackedMove.from(moves[i]);
+                if (PackedMove.to(moves[i]) == to && other != from
+                        && game.getBoard().getPiece(other).getPieceType() == type) {
+                    rivals = true;
+                    sameFile |= (other & 7) == (from & 7);
+                    sameRank |= other >> 3 == from >> 3;
+                }
+            }
+            if (rivals && (!sameFile || sameRank)) {
+                san.append((char) ('a' + (from & 7)));
+            }
+            if (rivals && sameFile) {
+                san.append((char) ('1' + (from >> 3)));
+            }
+            if (capture) {
+                san.append('x');
+            }
+            san.append(Uci.squareName(to));
+        }
+
+        game.doMove(legal);
+        if (game.isInCheck(game.getTeamTurn())) {
+            san.append(game.legalMoves(moves) == 0 ? '#' : '+');
+        }
+        game.undoMove();
+        return san.toString();
+    }
+
+    private static int parseCastling(ChessGame game, CharSequence san, int start, int length, int[] moves,
+                                     int count) {
+        char letter = san.charAt(start);
+        boolean kingside = length == 3;
+        if (!kingside && length != 5) {
+            return -1;
+        }
+        for (int i = 1; i < length; i++) {
+            if (san.charAt(start + i) != (i % 2 == 1 ? '-' : letter)) {
+                return -1;
+            }
+        }
+        for (int i = 0; i < count; i++) {
+            int move = moves[i];
+            int from = PackedMove.from(move);
+            if (PackedMove.to(move) == from + (kingside ? 2 : -2)
+                    && game.getBoard().getPiece(from).getPieceType() == ChessPiece.PieceType.KING) {
+                return move;
+            }
+        }
+        return -1;
+    }
+
+    private static boolean isSquare(CharSequence text, int at) {
+        char file = text.charAt(at);
+        char rank = text.charAt(at + 1);
+        return file >= 'a' && file <= 'h' && rank >= '1' && rank <= '8';
+    }
+
+    private static int square(char file, char rank) {
+        return (rank - '1') * 8 + file - 'a';
+    }
+}
@@ -0,0 +1,97 @@
+package chess.notation;
+
+import chess.ChessMove;
+import chess.ChessPiece;
+import chess.ChessPosition;
+import chess.PackedMove;
+
+/**
+ * Coordinate notation as used by the Universal Chess Interface: the start and end squares,
+ * then the promotion piece in lower case, as in "e2e4" or "e7e8q". Square names come from
+ * tables built once, so formatting and parsing a square is a lookup.
+ */
+public final class Uci {
+
+    private static final String[] SQUARE_NAMES = new String[64];
+    // Promotion letters in PieceType order; kings and pawns are never promoted to.
+    private static final String PROMOTION_LETTERS = "kqbnrp";
+    private static final ChessPiece.PieceType[] TYPES = ChessPiece.PieceType.values();
+
+    static {
+        for (int square = 0; square < 64; square++) {
+            SQUARE_NAMES[square] = new String(new char[]{(char) ('a' + (square & 7)), (char) ('1' + (square >> 3))});
+        }
+    }
+
+    private Uci() {
+    }
+
+    /**
+     * @return the name of a square, 0 = "a1" through 63 = "h8"
+     */
+    public static String squareName(int square) {
+        return SQUARE_NAMES[square];
+    }
+
+    /**
+     * @return the name of a position, such as "e4"
+     */
+    public static String squareName(ChessPosition position) {
+        return SQUARE_NAMES[(position.getRow() - 1) * 8 + position.getColumn() - 1];
+    }
+
+    /**
+     * Reads a square name such as "e4" at {@code start}.
+     *
+     * @return the square's position, or null if there is no square name there
+     */
+    public static ChessPosition parseSquare(CharSequence text, int start) {
+        if (start < 0 || start + 2 > text.length()) {
+            return null;
+        }
+        int file = text.charAt(start) - 'a';
+        int rank = text.charAt(start + 1) - '1';
+        if (file < 0 || file > 7 || rank < 0 || rank > 7) {
+            return null;
+        }
+        return ChessPosition.of(rank + 1, file + 1);
+    }
+
+    public static ChessPosition parseSquare(CharSequence text) {
+        return text.length() == 2 ? parseSquare(text, 0) : null;
+    }
+
+    public static String format(ChessMove move) {
+        String squares = squareName(move.getStartPosition()) + squareName(move.getEndPosition());
+        ChessPiece.PieceType promotion = move.getPromotionPiece();
+        return promotion == null ? squares : squares + PROMOTION_LETTERS.charAt(promotion.ordinal());
+    }
+
+    public static String format(int move) {
+        String squares = SQUARE_NAMES[PackedMove.from(move)] + SQUARE_NAMES[PackedMove.to(move)];
+        ChessPiece.PieceType promotion = PackedMove.promotion(move);
+        return promotion == null ? squares : squares + PROMOTION_LETTERS.charAt(promotion.ordinal());
+    }
+
+    /**
+     * Reads a move in coordinate notation. Whether it is legal is not checked.
+     *
+     * @throws IllegalArgumentException if the text is not a move in coordinate notation
+     */
+    public static ChessMove parse(CharSequence text) {
+        ChessPosition start = parseSquare(text, 0);
+        ChessPosition end = parseSquare(text, 2);
+        if (start == null || end == null || text.length() > 5) {
+            throw new IllegalArgumentException("Bad UCI move: " + text);
+        }
+        ChessPiece.PieceType promotion = null;
+        if (text.length() == 5) {
+            int index = PROMOTION_LETTERS.indexOf(Character.toLowerCase(text.charAt(4)));
+            if (index < 1 || index > 4) {
+                throw new IllegalArgumentException("Bad promotion piece in UCI move: " + text);
+            }
+            promotion = TYPES[index];
+        }
+        return new ChessMove(start, end, promotion);
+    }
+}
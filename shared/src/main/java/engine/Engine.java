@@ -0,0 +1,440 @@
+package engine;
+
+import chess.ChessBoard;
+import chess.ChessGame;
+import chess.ChessMove;
+import chess.ChessPiece;
+import chess.PackedMove;
+
+import java.util.function.Consumer;
+
+/**
+ * Chooses a move for the side to move by iterative-deepening alpha-beta search.
+ * <p>
+ * Each iteration searches one ply deeper than the last, starting with the previous best move,
+ * and ends in a quiescence search over captures so positions are only scored once they are
+ * quiet. Moves are tried in the order most likely to cause a cutoff: the previous best move,
+ * then captures by most valuable victim and least valuable attacker (MVV-LVA), promotions, the
+ * two killer moves that last caused a cutoff at the same ply, and finally quiet moves by their
+ * history score.
+ * <p>
+ * Every searched position is recorded in a {@link TranspositionTable}. A position reached
+ * again, by transposition or in the next iteration, starts with the move that was best last
+ * time and is skipped entirely when the stored result is deep enough to decide it.
+ * <p>
+ * An engine keeps its killer and history tables between searches, so it should be reused for
+ * consecutive searches of the same game. It is not thread-safe; use one per thread. Engines
+ * on different threads may share a transposition table.
+ */
+public final class Engine {
+
+    /** Score of being mated on the spot; a mate found n plies away scores {@code MATE - n}. */
+    public static final int MATE = 30_000;
+    public static final int MAX_PLY = 128;
+    public static final int DEFAULT_TABLE_MB = 16;
+
+    private static final int INFINITY = 32_000;
+    /** Centipawn value of each piece type, indexed by {@code PieceType.ordinal()}. */
+    private static final int[] VALUES = {0, 900, 330, 320, 500, 100};
+    private static final int HASH_MOVE_SCORE = 1 << 30;
+    private static final int CAPTURE_SCORE = 1 << 24;
+    private static final int PROMOTION_SCORE = 1 << 23;
+    private static final int KILLER_SCORE = 1 << 22;
+    private static final int HISTORY_LIMIT = 1 << 21;
+
+    private final int[][] moves = new int[MAX_PLY + 1][PackedMove.MAX_MOVES];
+    private final int[][] orderScores = new int[MAX_PLY + 1][PackedMove.MAX_MOVES];
+    private final int[][] killers = new int[MAX_PLY + 1][2];
+    private final int[][] history = new int[64][64];
+
+    private final TranspositionTable table;
+    private ChessGame game;
+    private long nodes;
+    private long nodeLimit;
+    private long deadline;
+    private volatile boolean stopped;
+    private volatile long publishedNodes;
+    private int rootBest;
+
+    public Engine() {
+        this(new TranspositionTable(DEFAULT_TABLE_MB));
+    }
+
+    public Engine(TranspositionTable table) {
+        this.table = table;
+    }
+
+    public TranspositionTable table() {
+        return table;
+    }
+
+    /**
+     * Searches the current position of {@code game}, which is left unchanged.
+     *
+     * @return the result of the deepest iteration that finished
+     */
+    public SearchResult search(ChessGame game, SearchLimits limits) {
+        return search(game, limits, result -> { });
+    }
+
+    /**
+     * Searches the current position of {@code game}, which is left unchanged, reporting each
+     * finished iteration to {@code onIteration} as it completes.
+     *
+     * @return the result of the deepest iteration that finished
+     */
+    public SearchResult search(ChessGame game, SearchLimits limits, Consumer<SearchResult> onIteration) {
+        table.newSearch();
+        resetStop();
+        return run(game, limits, onIteration, 0);
+    }
+
+    /**
+     * Clears an earlier {@link #stop()}. Done before a search is started rather than inside it,
+     * so a stop that arrives before the search thread gets going is not lost.
+     */
+    void resetStop() {
+        stopped = false;
+    }
+
+    /**
+     * Runs iterative deepening without starting a new table generation or clearing a stop.
+     *
+     * @param skew plies added to every iteration's depth, so that helper threads searching the
+     *             same position work ahead of one another
+     */
+    SearchResult run(ChessGame game, SearchLimits limits, Consumer<SearchResult> onIteration, int skew) {
+        long start = System.nanoTime();
+        this.game = new ChessGame(game);
+        nodes = 0;
+        publishedNodes = 0;
+        nodeLimit = limits.nodes() == 0 ? Long.MAX_VALUE : limits.nodes();
+        deadline = limits.millis() == 0 ? Long.MAX_VALUE : start + limits.millis() * 1_000_000;
+        rootBest = 0;
+        ageHistory();
+
+        int[] rootMoves = moves[0];
+        int count = this.game.legalMoves(rootMoves);
+        if (count == 0) {
+            int score = this.game.isInCheck(this.game.getTeamTurn()) ? -MATE : 0;
+            return new SearchResult(null, score, 0, 0, System.nanoTime() - start);
+        }
+        rootBest = rootMoves[0];
+        long rootEntry = table.probe(this.game.getPositionKey());
+        for (int i = 0; i < count && rootEntry != 0; i++) {
+            if (rootMoves[i] == TranspositionTable.move(rootEntry)) {
+                rootBest = rootMoves[i];
+            }
+        }
+
+        SearchResult result = null;
+        int maxDepth = Math.min(limits.depth(), MAX_PLY - 1);
+        for (int iteration = 1; iteration <= maxDepth; iteration++) {
+            int depth = Math.min(iteration + skew, maxDepth);
+            int score = searchRoot(depth);
+            if (stopped && result != null) {
+                break;
+            }
+            result = new SearchResult(PackedMove.toChessMove(rootBest), score, depth, nodes,
+                    System.nanoTime() - start);
+            onIteration.accept(result);
+            if (stopped || result.isMate()) {
+                break;
+            }
+        }
+        return new SearchResult(result.bestMove(), result.score(), result.depth(), nodes, System.nanoTime() - start);
+    }
+
+    /**
+     * Asks a running search to stop; it returns the best move of its last finished iteration.
+     * Safe to call from another thread.
+     */
+    public void stop() {
+        stopped = true;
+    }
+
+    private int searchRoot(int depth) {
+        int[] list = moves[0];
+        int count = game.legalMoves(list);
+        scoreMoves(0, count, rootBest);
+        int alpha = -INFINITY;
+        int best = rootBest;
+        for (int i = 0; i < count; i++) {
+            int move = pickNext(0, i, count);
+            visit();
+            game.doMove(move);
+            int score = -negamax(depth - 1, 1, -INFINITY, -alpha);
+            game.undoMove();
+            if (stopped) {
+                break;
+            }
+            if (score > alpha) {
+                alpha = score;
+                best = move;
+            }
+        }
+        if (alpha == -INFINITY) {
+            return evaluate();
+        }
+        rootBest = best;
+        if (!stopped) {
+            table.store(game.getPositionKey(), best, toTable(alpha, 0), depth, TranspositionTable.EXACT);
+        }
+        return alpha;
+    }
+
+    private int negamax(int depth, int ply, int alpha, int beta) {
+        if (game.isRepeated() || game.isFiftyMoveRule()) {
+            return 0;
+        }
+        if (depth <= 0) {
+            return quiesce(ply, alpha, beta);
+        }
+        if (ply >= MAX_PLY) {
+            return evaluate();
+        }
+        long key = game.getPositionKey();
+        long entry = table.probe(key);
+        int hashMove = 0;
+        if (entry != 0) {
+            hashMove = TranspositionTable.move(entry);
+            if (TranspositionTable.depth(entry) >= depth) {
+                int score = fromTable(TranspositionTable.score(entry), ply);
+                int bound = TranspositionTable.bound(entry);
+                if (bound == TranspositionTable.EXACT) {
+                    return score;
+                }
+                if (bound == TranspositionTable.LOWER && score >= beta) {
+                    return beta;
+                }
+                if (bound == TranspositionTable.UPPER && score <= alpha) {
+                    return alpha;
+                }
+            }
+        }
+        int[] list = moves[ply];
+        int count = game.legalMoves(list);
+        if (count == 0) {
+            return game.isInCheck(game.getTeamTurn()) ? -MATE + ply : 0;
+        }
+        scoreMoves(ply, count, hashMove);
+        int bestMove = 0;
+        int bound = TranspositionTable.UPPER;
+        for (int i = 0; i < count; i++) {
+            int move = pickNext(ply, i, count);
+            visit();
+            game.doMove(move);
+            int score = -negamax(depth - 1, ply + 1, -beta, -alpha);
+            game.undoMove();
+            if (stopped) {
+                return 0;
+            }
+            if (score >= beta) {
+                if (isQuiet(move)) {
+                    rememberCutoff(move, depth, ply);
+                }
+                table.store(key, move, toTable(beta, ply), depth, TranspositionTable.LOWER);
+                return beta;
+            }
+            if (score > alpha) {
+                alpha = score;
+                bestMove = move;
+                bound = TranspositionTable.EXACT;
+            }
+        }
+        table.store(key, bestMove, toTable(alpha, ply), depth, bound);
+        return alpha;
+    }
+
+    /**
+     * Mate scores count plies from the root; the table stores them counted from the position
+     * itself, so they stay correct when the position is reached at a different ply.
+     */
+    private static int toTable(int score, int ply) {
+        if (score >= MATE - MAX_PLY) {
+            return score + ply;
+        }
+        return score <= -MATE + MAX_PLY ? score - ply : score;
+    }
+
+    private static int fromTable(int score, int ply) {
+        if (score >= MATE - MAX_PLY) {
+            return score - ply;
+        }
+        return score <= -MATE + MAX_PLY ? score + ply : score;
+    }
+
+    /**
+     * Searches captures and promotions only, so that the static evaluation is never taken in
+     * the middle of an exchange. A side in check must search every evasion instead.
+     */
+    private int quiesce(int ply, int alpha, int beta) {
+        if (ply >= MAX_PLY) {
+            return evaluate();
+        }
+        int[] list = moves[ply];
+        boolean inCheck = game.isInCheck(game.getTeamTurn());
+        int count;
+        if (inCheck) {
+            count = game.legalMoves(list);
+            if (count == 0) {
+                return -MATE + ply;
+            }
+        } else {
+            int standPat = evaluate();
+            if (standPat >= beta) {
+                return beta;
+            }
+            if (standPat > alpha) {
+                alpha = standPat;
+            }
+            count = game.legalCaptures(list);
+        }
+        scoreMoves(ply, count, 0);
+        for (int i = 0; i < count; i++) {
+            int move = pickNext(ply, i, count);
+            visit();
+            game.doMove(move);
+            int score = -quiesce(ply + 1, -beta, -alpha);
+            game.undoMove();
+            if (stopped) {
+                return 0;
+            }
+            if (score >= beta) {
+                return beta;
+            }
+            if (score > alpha) {
+                alpha = score;
+            }
+        }
+        return alpha;
+    }
+
+    /**
+     * Counts a node and stops the search once its node or time budget is spent. The clock is
+     * only read, and the node count only published to other threads, every 1024 nodes.
+     */
+    private void visit() {
+        nodes++;
+        if (nodes >= nodeLimit) {
+            stopped = true;
+        }
+        if ((nodes & 1023) == 0) {
+            publishedNodes = nodes;
+            if (System.nanoTime() > deadline) {
+                stopped = true;
+            }
+        }
+    }
+
+    /**
+     * @return the running search's node count as of its last 1024-node mark, readable from
+     * other threads
+     */
+    long publishedNodes() {
+        return publishedNodes;
+    }
+
+    /**
+     * @return the board's incrementally kept piece-square evaluation, from the side to move's
+     * point of view
+     */
+    private int evaluate() {
+        int score = game.getBoard().evaluate();
+        return game.getTeamTurn() == ChessGame.TeamColor.WHITE ? score : -score;
+    }
+
+    private void scoreMoves(int ply, int count, int hashMove) {
+        int[] list = moves[ply];
+        int[] scores = orderScores[ply];
+        ChessBoard board = game.getBoard();
+        for (int i = 0; i < count; i++) {
+            int move = list[i];
+            int from = PackedMove.from(move);
+            int to = PackedMove.to(move);
+            ChessPiece.PieceType promotion = PackedMove.promotion(move);
+            int score;
+            if (move == hashMove) {
+                score = HASH_MOVE_SCORE;
+            } else if (PackedMove.isCapture(move)) {
+                ChessPiece taken = board.getPiece(to);
+                // An en passant capture lands on an empty square and takes a pawn.
+                int victim = taken == null ? VALUES[ChessPiece.PieceType.PAWN.ordinal()]
+                        : VALUES[taken.getPieceType().ordinal()];
+                int attacker = VALUES[board.getPiece(from).getPieceType().ordinal()];
+                score = CAPTURE_SCORE + victim * 1024 - attacker;
+            } else if (promotion != null) {
+                score = PROMOTION_SCORE + VALUES[promotion.ordinal()];
+            } else if (move == killers[ply][0]) {
+                score = KILLER_SCORE;
+            } else if (move == killers[ply][1]) {
+                score = KILLER_SCORE - 1;
+            } else {
+                score = history[from][to];
+            }
+            scores[i] = score;
+        }
+    }
+
+    /**
+     * Moves the best-scored of the untried moves to {@code index} and returns it, so that a
+     * cutoff after the first few moves never pays for sorting the rest.
+     */
+    private int pickNext(int ply, int index, int count) {
+        int[] list = moves[ply];
+        int[] scores = orderScores[ply];
+        int best = index;
+        for (int i = index + 1; i < count; i++) {
+            if (scores[i] > scores[best]) {
+                best = i;
+            }
+        }
+        int move = list[best];
+        list[best] = list[index];
+        list[index] = move;
+        int score = scores[best];
+        scores[best] = scores[index];
+        scores[index] = score;
+        return move;
+    }
+
+    private static boolean isQuiet(int move) {
+        return !PackedMove.isCapture(move) && PackedMove.promotion(move) == null;
+    }
+
+    private void rememberCutoff(int move, int depth, int ply) {
+        if (killers[ply][0] != move) {
+            killers[ply][1] = killers[ply][0];
+            killers[ply][0] = move;
+        }
+        int[] fromHistory = history[PackedMove.from(move)];
+        int to = PackedMove.to(move);
+        fromHistory[to] += depth * depth;
+        if (fromHistory[to] >= HISTORY_LIMIT) {
+            ageHistory();
+        }
+    }
+
+    /**
+     * Halves every history score so that old cutoffs fade and scores stay below the killers.
+     */
+    private void ageHistory() {
+        for (int[] fromHistory : history) {
+            for (int to = 0; to < 64; to++) {
+                fromHistory[to] >>= 1;
+            }
+        }
+    }
+
+    public static void main(String[] args) {
+        int depth = args.length > 0 ? Integer.parseInt(args[0]) : 6;
+        Engine engine = new Engine();
+        SearchResult result = engine.search(new ChessGame(), SearchLimits.depth(depth),
+                iteration -> System.out.println(iteration));
+        ChessMove best = result.bestMove();
+        System.out.printf("bestmove %s, %,d nodes at %,d nps%n", best, result.nodes(), result.nodesPerSecond());
+        TranspositionTable table = engine.table();
+        System.out.printf("table: %,d hits, %,d misses, %,d collisions%n", table.hits(), table.misses(),
+                table.collisions());
+    }
+}
@@ -0,0 +1,86 @@
+package engine;
+
+import chess.ChessBoard;
+import chess.ChessGame;
+import chess.PackedMove;
+
+/**
+ * Compares the cost per node of the board's incrementally kept evaluation with evaluating
+ * every node from scratch.
+ * <p>
+ * The benchmark walks the full move tree below the start position three times: once without
+ * evaluating, once calling {@link ChessBoard#evaluate()} at every node and once calling
+ * {@link ChessBoard#evaluateFromScratch()}. Subtracting the bare walk leaves the cost of each
+ * kind of evaluation. The incremental updates themselves happen on every move in all three
+ * walks, so their cost is part of the bare walk.
+ * <p>
+ * Run {@code java engine.EvaluationBenchmark [depth]}.
+ */
+public final class EvaluationBenchmark {
+
+    private static final int NONE = 0;
+    private static final int INCREMENTAL = 1;
+    private static final int FROM_SCRATCH = 2;
+
+    private EvaluationBenchmark() {
+    }
+
+    public static void main(String[] args) {
+        int depth = args.length > 0 ? Integer.parseInt(args[0]) : 5;
+        ChessGame game = new ChessGame();
+        int[][] lists = new int[depth][PackedMove.MAX_MOVES];
+        for (int round = 0; round < 3; round++) {
+            long[] nanos = new long[3];
+            long[] checksums = new long[3];
+            long nodes = 0;
+            for (int mode = NONE; mode <= FROM_SCRATCH; mode++) {
+                long start = System.nanoTime();
+                Walk walk = new Walk(game, lists, mode);
+                walk.visit(depth);
+                nanos[mode] = System.nanoTime() - start;
+                nodes = walk.nodes;
+                checksums[mode] = walk.checksum;
+            }
+            String label = round < 2 ? "warm-up" : "measured";
+            System.out.printf("%s: %,d nodes, walk %.1f ns/node, incremental +%.1f ns/node, "
+                            + "from scratch +%.1f ns/node, results agree: %b%n", label, nodes,
+                    (double) nanos[NONE] / nodes, (double) (nanos[INCREMENTAL] - nanos[NONE]) / nodes,
+                    (double) (nanos[FROM_SCRATCH] - nanos[NONE]) / nodes,
+                    checksums[INCREMENTAL] == checksums[FROM_SCRATCH]);
+        }
+    }
+
+    private static final class Walk {
+
+        private final ChessGame game;
+        private final int[][] lists;
+        private final int mode;
+        private long nodes;
+        private long checksum;
+
+        Walk(ChessGame game, int[][] lists, int mode) {
+            this.game = game;
+            this.lists = lists;
+            this.mode = mode;
+        }
+
+        void visit(int depth) {
+            nodes++;
+            if (mode == INCREMENTAL) {
+                checksum += game.getBoard().evaluate();
+            } else if (mode == FROM_SCRATCH) {
+                checksum += game.getBoard().evaluateFromScratch();
+            }
+            if (depth == 0) {
+                return;
+            }
+            int[] moves = lists[depth - 1];
+            int count = game.legalMoves(moves);
+            for (int i = 0; i < count; i++) {
+                game.doMove(moves[i]);
+                visit(depth - 1);
+                game.undoMove();
+            }
+        }
+    }
+}
@@ -0,0 +1,152 @@
+package engine;
+
+import chess.ChessGame;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * Multi-threaded search by Lazy SMP: every thread runs an ordinary {@link Engine} search of
+ * the same root position, and they cooperate only through a shared
+ * {@link TranspositionTable}. Half the helpers search one ply deeper than the main thread at
+ * every iteration, so they fill the table with results the main thread is about to need. The
+ * main thread's answer is the one returned; helpers are stopped as soon as it finishes.
+ * <p>
+ * Node limits are split evenly between the threads. Reported node counts and nodes per second
+ * are totals over all threads.
+ */
+public final class LazySmpSearch implements AutoCloseable {
+
+    private final Engine main;
+    private final Engine[] helpers;
+    // Runs the helpers; null when the calling thread searches alone.
+    private final ExecutorService pool;
+
+    /**
+     * @param threads        search threads to use, the calling thread included
+     * @param tableMegabytes size of the shared transposition table
+     */
+    public LazySmpSearch(int threads, int tableMegabytes) {
+        if (threads < 1) {
+            throw new IllegalArgumentException("Search needs at least one thread");
+        }
+        TranspositionTable table = new TranspositionTable(tableMegabytes);
+        main = new Engine(table);
+        helpers = new Engine[threads - 1];
+        for (int i = 0; i < helpers.length; i++) {
+            helpers[i] = new Engine(table);
+        }
+        if (helpers.length == 0) {
+            pool = null;
+            return;
+        }
+        AtomicInteger count = new AtomicInteger();
+        pool = Executors.newFixedThreadPool(helpers.length, task -> {
+            Thread thread = new Thread(task, "search-helper-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    public TranspositionTable table() {
+        return main.table();
+    }
+
+    public SearchResult search(ChessGame game, SearchLimits limits) {
+        return search(game, limits, result -> { });
+    }
+
+    /**
+     * Searches the current position of {@code game}, which is left unchanged, on every thread.
+     * The calling thread runs the main search and reports each of its finished iterations to
+     * {@code onIteration}, with nodes counted over all threads and time measured from the start,
+     * so the elapsed time is the time to reach that depth.
+     *
+     * @return the main thread's result, with the total node count of all threads
+     */
+    public SearchResult search(ChessGame game, SearchLimits limits, Consumer<SearchResult> onIteration) {
+        long start = System.nanoTime();
+        int threads = helpers.length + 1;
+        long nodeShare = limits.nodes() == 0 ? 0 : Math.max(1, limits.nodes() / threads);
+        SearchLimits mainLimits = new SearchLimits(limits.depth(), nodeShare, limits.millis());
+        SearchLimits helperLimits = new SearchLimits(Engine.MAX_PLY - 1, nodeShare, limits.millis());
+
+        main.table().newSearch();
+        main.resetStop();
+        List<Future<SearchResult>> running = new ArrayList<>(helpers.length);
+        for (int i = 0; i < helpers.length; i++) {
+            Engine helper = helpers[i];
+            int skew = i % 2 == 0 ? 1 : 0;
+            helper.resetStop();
+            running.add(pool.submit(() -> helper.run(game, helperLimits, result -> { }, skew)));
+        }
+
+        SearchResult result;
+        try {
+            result = main.run(game, mainLimits, iteration -> onIteration.accept(new SearchResult(
+                    iteration.bestMove(), iteration.score(), iteration.depth(),
+                    iteration.nodes() + helperNodes(), System.nanoTime() - start)), 0);
+        } finally {
+            for (Engine helper : helpers) {
+                helper.stop();
+            }
+        }
+
+        long nodes = result.nodes();
+        for (Future<SearchResult> helper : running) {
+            try {
+                nodes += helper.get().nodes();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted waiting for search helpers", e);
+            } catch (ExecutionException e) {
+                throw new IllegalStateException("Search helper failed", e.getCause());
+            }
+        }
+        return new SearchResult(result.bestMove(), result.score(), result.depth(), nodes, System.nanoTime() - start);
+    }
+
+    /**
+     * Stops a running search on every thread. Safe to call from any thread.
+     */
+    public void stop() {
+        main.stop();
+        for (Engine helper : helpers) {
+            helper.stop();
+        }
+    }
+
+    @Override
+    public void close() {
+        stop();
+        if (pool != null) {
+            pool.shutdownNow();
+        }
+    }
+
+    private long helperNodes() {
+        long nodes = 0;
+        for (Engine helper : helpers) {
+            nodes += helper.publishedNodes();
+        }
+        return nodes;
+    }
+
+    public static void main(String[] args) {
+        int threads = args.length > 0 ? Integer.parseInt(args[0]) : Runtime.getRuntime().availableProcessors();
+        int depth = args.length > 1 ? Integer.parseInt(args[1]) : 8;
+        try (LazySmpSearch search = new LazySmpSearch(threads, 64)) {
+            System.out.printf("%d thread(s)%n", threads);
+            SearchResult result = search.search(new ChessGame(), SearchLimits.depth(depth),
+                    iteration -> System.out.println(iteration));
+            System.out.printf("bestmove %s, %,d nodes at %,d nps%n", result.bestMove(), result.nodes(),
+                    result.nodesPerSecond());
+        }
+    }
+}
@@ -0,0 +1,33 @@
+package engine;
+
+/**
+ * How far a search may go. The search stops at whichever limit it reaches first; a node or
+ * time limit of 0 means no limit.
+ *
+ * @param depth  deepest iteration to run, in plies
+ * @param nodes  nodes to visit before stopping
+ * @param millis wall-clock time to spend before stopping
+ */
+public record SearchLimits(int depth, long nodes, long millis) {
+
+    public SearchLimits {
+        if (depth < 1) {
+            throw new IllegalArgumentException("Search depth must be at least 1");
+        }
+        if (nodes < 0 || millis < 0) {
+            throw new IllegalArgumentException("Search limits cannot be negative");
+        }
+    }
+
+    public static SearchLimits depth(int depth) {
+        return new SearchLimits(depth, 0, 0);
+    }
+
+    public static SearchLimits nodes(long nodes) {
+        return new SearchLimits(Engine.MAX_PLY - 1, nodes, 0);
+    }
+
+    public static SearchLimits millis(long millis) {
+        return new SearchLimits(Engine.MAX_PLY - 1, 0, millis);
+    }
+}
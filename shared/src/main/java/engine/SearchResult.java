@@ -0,0 +1,33 @@
+package engine;
+
+import chess.ChessMove;
+
+/**
+ * The outcome of a search, or of one iteration of it.
+ *
+ * @param bestMove     the move to play, or null if the side to move has none
+ * @param score        centipawns from the side to move's point of view; mates are scored
+ *                     {@link Engine#MATE} minus the plies to mate
+ * @param depth        the deepest iteration that finished
+ * @param nodes        positions visited, quiescence included
+ * @param elapsedNanos wall-clock time spent
+ */
+public record SearchResult(ChessMove bestMove, int score, int depth, long nodes, long elapsedNanos) {
+
+    public long nodesPerSecond() {
+        return elapsedNanos == 0 ? 0 : nodes * 1_000_000_000L / elapsedNanos;
+    }
+
+    /**
+     * @return true if the score is a forced mate for either side
+     */
+    public boolean isMate() {
+        return Math.abs(score) >= Engine.MATE - Engine.MAX_PLY;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("depth %d score %d nodes %d time %d ms nps %d best %s", depth, score, nodes,
+                elapsedNanos / 1_000_000, nodesPerSecond(), bestMove);
+    }
+}
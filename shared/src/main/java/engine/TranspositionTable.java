@@ -0,0 +1,162 @@
+package engine;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A fixed-size cache of search results keyed by position hash, shared by any number of
+ * search threads without locks.
+ * <p>
+ * Each entry is two longs in one flat array: the entry's data, and the position key XORed
+ * with that data. A reader accepts an entry only if the two XOR back to the key it asked for,
+ * so when two threads write the same slot at once the mixed-up halves simply read as a miss.
+ * Losing an entry now and then is cheaper than locking on every node.
+ * <p>
+ * The data word packs the best move (bits 0-15), the score (16-31), the depth searched
+ * (32-39), the kind of bound (40-41) and the search generation that wrote it (42-47). When two
+ * positions compete for a slot the deeper result is kept, unless the stored one is left over
+ * from an earlier search.
+ */
+public final class TranspositionTable {
+
+    /** The score is exact. */
+    public static final int EXACT = 1;
+    /** The score is a lower bound: the search failed high. */
+    public static final int LOWER = 2;
+    /** The score is an upper bound: no move raised alpha. */
+    public static final int UPPER = 3;
+
+    private static final VarHandle SLOTS = MethodHandles.arrayElementVarHandle(long[].class);
+
+    private final long[] slots;
+    private final int mask;
+    private volatile int generation;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder collisions = new LongAdder();
+
+    /**
+     * @param megabytes memory to use; the entry count is rounded down to a power of two
+     */
+    public TranspositionTable(int megabytes) {
+        if (megabytes < 1) {
+            throw new IllegalArgumentException("Transposition table needs at least 1 MB");
+        }
+        long entries = Long.highestOneBit(megabytes * 1024L * 1024L / 16);
+        if (entries > 1 << 29) {
+            throw new IllegalArgumentException("Transposition table cannot exceed 8192 MB");
+        }
+        slots = new long[(int) entries * 2];
+        mask = (int) entries - 1;
+    }
+
+    /**
+     * Looks up a position.
+     *
+     * @return the packed entry for the position, or 0 if there is none
+     */
+    public long probe(long key) {
+        int index = index(key);
+        long data = (long) SLOTS.getOpaque(slots, index + 1);
+        long check = (long) SLOTS.getOpaque(slots, index);
+        if ((check ^ data) == key && data != 0) {
+            hits.increment();
+            return data;
+        }
+        misses.increment();
+        if (data != 0) {
+            collisions.increment();
+        }
+        return 0;
+    }
+
+    /**
+     * Records a search result, unless the slot holds a deeper result for another position
+     * from the current search.
+     *
+     * @param key   position key
+     * @param move  best move found, as a packed move, or 0 if none
+     * @param score score from the side to move's point of view
+     * @param depth depth the position was searched to
+     * @param bound {@link #EXACT}, {@link #LOWER} or {@link #UPPER}
+     */
+    public void store(long key, int move, int score, int depth, int bound) {
+        int index = index(key);
+        long old = (long) SLOTS.getOpaque(slots, index + 1);
+        if (old != 0) {
+            boolean samePosition = ((long) SLOTS.getOpaque(slots, index) ^ old) == key;
+            boolean current = generation(old) == generation;
+            if (!samePosition && current && depth(old) > depth) {
+                return;
+            }
+        }
+        long data = (move & 0xFFFFL) | (score & 0xFFFFL) << 16 | (long) (depth & 0xFF) << 32
+                | (long) bound << 40 | (long) generation << 42;
+        SLOTS.setOpaque(slots, index, key ^ data);
+        SLOTS.setOpaque(slots, index + 1, data);
+    }
+
+    /**
+     * Marks the start of a new search, so that entries from earlier searches give way to new
+     * ones regardless of depth.
+     */
+    public void newSearch() {
+        generation = (generation + 1) & 63;
+    }
+
+    public void clear() {
+        for (int i = 0; i < slots.length; i++) {
+            SLOTS.setOpaque(slots, i, 0L);
+        }
+        hits.reset();
+        misses.reset();
+        collisions.reset();
+    }
+
+    public static int move(long entry) {
+        return (int) (entry & 0xFFFF);
+    }
+
+    public static int score(long entry) {
+        return (short) (entry >>> 16);
+    }
+
+    public static int depth(long entry) {
+        return (int) (entry >>> 32 & 0xFF);
+    }
+
+    public static int bound(long entry) {
+        return (int) (entry >>> 40 & 3);
+    }
+
+    private static int generation(long entry) {
+        return (int) (entry >>> 42 & 63);
+    }
+
+    public int capacity() {
+        return mask + 1;
+    }
+
+    public long hits() {
+        return hits.sum();
+    }
+
+    /**
+     * @return lookups that found nothing for their position, collisions included
+     */
+    public long misses() {
+        return misses.sum();
+    }
+
+    /**
+     * @return lookups whose slot held an entry for a different position
+     */
+    public long collisions() {
+        return collisions.sum();
+    }
+
+    private int index(long key) {
+        return ((int) (key ^ key >>> 32) & mask) << 1;
+    }
+}
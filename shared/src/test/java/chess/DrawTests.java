@@ -0,0 +1,102 @@
+package chess;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import passoff.chess.TestUtilities;
+
+public class DrawTests {
+
+    private static void move(ChessGame game, int fromRow, int fromCol, int toRow, int toCol) throws InvalidMoveException {
+        game.makeMove(new ChessMove(ChessPosition.of(fromRow, fromCol), ChessPosition.of(toRow, toCol), null));
+    }
+
+    @Test
+    @DisplayName("Threefold Repetition Ends Game")
+    public void threefoldRepetition() throws InvalidMoveException {
+        ChessGame game = new ChessGame();
+        for (int round = 0; round < 2; round++) {
+            Assertions.assertTrue(game.playing, "Game ended before the third repetition");
+            move(game, 1, 7, 3, 6);
+            move(game, 8, 7, 6, 6);
+            move(game, 3, 6, 1, 7);
+            Assertions.assertFalse(game.isThreefoldRepetition(), "Position has not repeated yet");
+            move(game, 6, 6, 8, 7);
+        }
+        Assertions.assertTrue(game.isThreefoldRepetition(), "Starting position stood three times");
+        Assertions.assertFalse(game.playing, "Game should end on threefold repetition");
+        Assertions.assertEquals(ChessGame.TeamColor.WHITE, game.getTeamTurn(), "Drawn game kept the wrong turn");
+
+        game.undoMove();
+        Assertions.assertTrue(game.playing, "Undo should resume the game");
+        Assertions.assertFalse(game.isThreefoldRepetition(), "Undo did not drop the repetition");
+    }
+
+    @Test
+    @DisplayName("Pawn Move Resets Repetitions")
+    public void irreversibleMove() throws InvalidMoveException {
+        ChessGame game = new ChessGame();
+        move(game, 1, 7, 3, 6);
+        move(game, 8, 7, 6, 6);
+        move(game, 3, 6, 1, 7);
+        move(game, 6, 6, 8, 7);
+        Assertions.assertTrue(game.isRepeated(), "Starting position stood twice");
+        Assertions.assertEquals(4, game.getHalfmoveClock(), "Wrong halfmove clock");
+        move(game, 2, 5, 4, 5);
+        Assertions.assertEquals(0, game.getHalfmoveClock(), "Pawn move should reset the clock");
+        Assertions.assertFalse(game.isRepeated(), "Position after a pawn move cannot have stood before");
+    }
+
+    @Test
+    @DisplayName("Fifty Move Rule Ends Game")
+    public void fiftyMoveRule() throws InvalidMoveException {
+        ChessGame game = new ChessGame();
+        game.setBoard(TestUtilities.loadBoard("""
+                | | | | | | | |k|
+                | | | | | | | | |
+                | | | | | | | | |
+                | | | | | | | | |
+                | | | | | | | | |
+                | | | | | | | | |
+                | | | | | | | | |
+                |K| | | | | | | |
+                """));
+        // The white king snakes across the first six ranks and on along the seventh, so no
+        // position repeats while the black king steps back and forth.
+        int row = 1;
+        int col = 1;
+        for (int i = 0; i < 50; i++) {
+            int nextRow = row;
+            int nextCol = col + (row % 2 == 1 ? 1 : -1);
+            if (row == 6 && col == 1) {
+                nextRow = 7;
+                nextCol = 1;
+            } else if (row == 7) {
+                nextCol = col + 1;
+            } else if (nextCol < 1 || nextCol > 8) {
+                nextRow = row + 1;
+                nextCol = col;
+            }
+            move(game, row, col, nextRow, nextCol);
+            row = nextRow;
+            col = nextCol;
+            Assertions.assertTrue(game.playing, "Game ended before fifty moves");
+            move(game, 8, i % 2 == 0 ? 8 : 7, 8, i % 2 == 0 ? 7 : 8);
+        }
+        Assertions.assertEquals(100, game.getHalfmoveClock(), "Wrong halfmove clock");
+        Assertions.assertTrue(game.isFiftyMoveRule(), "Fifty moves went by without a capture or pawn move");
+        Assertions.assertFalse(game.playing, "Game should end on the fifty-move rule");
+    }
+
+    @Test
+    @DisplayName("Mate On The Hundredth Halfmove Is Not A Draw")
+    public void mateBeatsFiftyMoveRule() throws InvalidMoveException {
+        ChessGame game = ChessGame.fromFen("7k/8/6K1/8/8/8/8/R7 w - - 99 80");
+        move(game, 1, 1, 8, 1);
+        Assertions.assertFalse(game.playing, "Mate should end the game");
+        Assertions.assertTrue(game.isFiftyMoveRule(), "Mate was the hundredth halfmove");
+        Assertions.assertTrue(game.isSurrounded(ChessGame.TeamColor.BLACK), "Black should have no legal move");
+        Assertions.assertTrue(game.isInCheck(ChessGame.TeamColor.BLACK), "Black should be mated, not stalemated");
+        Assertions.assertEquals(ChessGame.TeamColor.WHITE, game.getTeamTurn(), "Mated game kept the wrong turn");
+    }
+}
@@ -0,0 +1,38 @@
+package chess;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+public class EvaluationTests {
+
+    @Test
+    @DisplayName("Starting Position Is Even")
+    public void startingPosition() {
+        Assertions.assertEquals(0, new ChessGame().getBoard().evaluate(), "Symmetric position should score 0");
+    }
+
+    @Test
+    @DisplayName("Incremental Matches From Scratch")
+    public void incrementalMatchesFromScratch() {
+        ChessGame game = ChessGame.fromFen("r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1");
+        walk(game, 3, new int[3][PackedMove.MAX_MOVES]);
+        ChessBoard copy = new ChessBoard(game.getBoard());
+        Assertions.assertEquals(game.getBoard().evaluate(), copy.evaluate(), "Copy lost the evaluation");
+    }
+
+    private static void walk(ChessGame game, int depth, int[][] lists) {
+        ChessBoard board = game.getBoard();
+        Assertions.assertEquals(board.evaluateFromScratch(), board.evaluate(), "Incremental evaluation drifted");
+        if (depth == 0) {
+            return;
+        }
+        int[] moves = lists[depth - 1];
+        int count = game.legalMoves(moves);
+        for (int i = 0; i < count; i++) {
+            game.doMove(moves[i]);
+            walk(game, depth - 1, lists);
+            game.undoMove();
+        }
+    }
+}
@@ -0,0 +1,70 @@
+package chess;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+public class FenTests {
+
+    private static final String START = "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 1";
+
+    @Test
+    @DisplayName("Starting Position")
+    public void startingPosition() {
+        Assertions.assertEquals(new ChessGame(), ChessGame.fromFen(START), "FEN did not give the starting position");
+        Assertions.assertEquals(START, new ChessGame().toFen(), "Wrong FEN for the starting position");
+    }
+
+    @Test
+    @DisplayName("Suite Round Trip")
+    public void suiteRoundTrip() throws Exception {
+        for (Perft.Entry entry : Perft.loadSuite()) {
+            Assertions.assertEquals(entry.fen(), ChessGame.fromFen(entry.fen()).toFen(), "FEN did not round trip");
+        }
+    }
+
+    @Test
+    @DisplayName("Matches Played Game")
+    public void playedGame() throws InvalidMoveException {
+        ChessGame game = new ChessGame();
+        game.makeMove(new ChessMove(ChessPosition.of(2, 5), ChessPosition.of(4, 5), null));
+        game.makeMove(new ChessMove(ChessPosition.of(7, 1), ChessPosition.of(6, 1), null));
+        game.makeMove(new ChessMove(ChessPosition.of(4, 5), ChessPosition.of(5, 5), null));
+        game.makeMove(new ChessMove(ChessPosition.of(7, 4), ChessPosition.of(5, 4), null));
+        String fen = "rnbqkbnr/1pp1pppp/p7/3pP3/8/8/PPPP1PPP/RNBQKBNR w KQkq d6 0 3";
+        Assertions.assertEquals(fen, game.toFen(), "Wrong FEN after an en passant chance");
+        Assertions.assertEquals(game, ChessGame.fromFen(fen), "FEN lost the en passant chance");
+        Assertions.assertEquals(game.getPositionKey(), ChessGame.fromFen(fen).getPositionKey(), "Keys differ");
+
+        game.makeMove(new ChessMove(ChessPosition.of(1, 5), ChessPosition.of(2, 5), null));
+        Assertions.assertEquals("rnbqkbnr/1pp1pppp/p7/3pP3/8/8/PPPPKPPP/RNBQ1BNR b kq - 1 3", game.toFen(),
+                "Wrong FEN after the king moved");
+    }
+
+    @Test
+    @DisplayName("Unusable State Dropped")
+    public void unusableState() {
+        ChessGame game = ChessGame.fromFen("4k3/8/8/8/4P3/8/8/4K3 b KQkq e3 0 1");
+        Assertions.assertEquals("4k3/8/8/8/4P3/8/8/4K3 b - - 0 1", game.toFen(),
+                "Castling without rooks and en passant without a capturer should be dropped");
+        Assertions.assertEquals("4k3/8/8/8/8/8/8/4K3 w - - 0 1", ChessGame.fromFen("4k3/8/8/8/8/8/8/4K3 w").toFen(),
+                "Missing fields should take their defaults");
+    }
+
+    @Test
+    @DisplayName("Rejects Malformed FEN")
+    public void malformed() {
+        String[] bad = {
+                "", "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP w KQkq - 0 1",
+                "rnbqkbnr/pppppppp/9/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 1",
+                "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNRR w KQkq - 0 1",
+                "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNX w KQkq - 0 1",
+                "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR x KQkq - 0 1",
+                "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KX - 0 1",
+                "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq e4 0 1"
+        };
+        for (String fen : bad) {
+            Assertions.assertThrows(IllegalArgumentException.class, () -> ChessGame.fromFen(fen), "Accepted " + fen);
+        }
+    }
+}
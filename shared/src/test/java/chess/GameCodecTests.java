@@ -0,0 +1,127 @@
+package chess;
+
+import chess.notation.San;
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonParseException;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+
+public class GameCodecTests {
+
+    private static void play(ChessGame game, String... moves) {
+        for (String san : moves) {
+            game.doMove(San.parse(game, san));
+        }
+    }
+
+    private static void assertSameGame(ChessGame expected, ChessGame actual) {
+        Assertions.assertEquals(expected, actual, "Decoded game differs");
+        Assertions.assertEquals(expected.toFen(), actual.toFen(), "Decoded game has a different FEN");
+        Assertions.assertEquals(expected.playing, actual.playing, "Decoded game has a different playing flag");
+        Assertions.assertEquals(expected.getPositionKey(), actual.getPositionKey(), "Decoded game has a different key");
+    }
+
+    @Test
+    @DisplayName("Starting Position Round Trip")
+    public void startingPosition() {
+        ChessGame game = new ChessGame();
+        byte[] bytes = GameCodec.encode(game);
+        Assertions.assertEquals(33, bytes.length, "Starting position should take 33 bytes");
+        assertSameGame(game, GameCodec.decode(bytes));
+    }
+
+    @Test
+    @DisplayName("Castling And En Passant Round Trip")
+    public void playedGame() {
+        ChessGame game = new ChessGame();
+        play(game, "Nf3", "Nf6", "e4", "Nc6", "e5", "d5");
+        Assertions.assertEquals(43, game.getEnPassantSquare(), "d6 should be open to en passant");
+        ChessGame decoded = GameCodec.decode(GameCodec.encode(game));
+        assertSameGame(game, decoded);
+
+        String[] rest = {"exd6", "cxd6", "Be2", "e6", "O-O", "Be7", "d3", "O-O"};
+        play(game, rest);
+        play(decoded, rest);
+        Assertions.assertEquals(0, game.getCastlingRights(), "Both sides have castled");
+        assertSameGame(game, decoded);
+        assertSameGame(game, GameCodec.decode(GameCodec.encode(game)));
+    }
+
+    @Test
+    @DisplayName("Repetitions Survive Round Trip")
+    public void repetitionWindow() throws InvalidMoveException {
+        ChessGame game = new ChessGame();
+        play(game, "Nf3", "Nf6", "Ng1", "Ng8", "Nf3", "Nf6", "Ng1");
+        ChessGame decoded = GameCodec.decode(GameCodec.encode(game));
+        Assertions.assertTrue(decoded.isRepeated(), "Decoded game lost its repetitions");
+        Assertions.assertFalse(decoded.isThreefoldRepetition(), "Position has only stood twice");
+
+        decoded.makeMove(San.parseMove(decoded, "Ng8"));
+        Assertions.assertTrue(decoded.isThreefoldRepetition(), "Starting position stood three times");
+        Assertions.assertFalse(decoded.playing, "Game should end on threefold repetition");
+    }
+
+    @Test
+    @DisplayName("Ended Game Round Trip")
+    public void endedGame() throws InvalidMoveException {
+        ChessGame game = new ChessGame();
+        play(game, "f3", "e5", "g4");
+        game.makeMove(San.parseMove(game, "Qh4#"));
+        Assertions.assertFalse(game.playing, "Game should be over");
+        ChessGame decoded = GameCodec.decode(GameCodec.encode(game));
+        assertSameGame(game, decoded);
+        Assertions.assertTrue(decoded.isInCheckmate(ChessGame.TeamColor.WHITE), "White should be mated");
+    }
+
+    @Test
+    @DisplayName("Board Round Trip")
+    public void board() {
+        ChessGame game = ChessGame.fromFen("r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1");
+        byte[] bytes = GameCodec.encode(game.getBoard());
+        Assertions.assertEquals(8 + 16, bytes.length, "Board of 32 pieces should take 24 bytes");
+        Assertions.assertEquals(game.getBoard(), GameCodec.decodeBoard(bytes), "Decoded board differs");
+
+        ChessBoard empty = new ChessBoard();
+        Assertions.assertEquals(empty, GameCodec.decodeBoard(GameCodec.encode(empty)), "Decoded empty board differs");
+    }
+
+    @Test
+    @DisplayName("Gson Adapters")
+    public void adapters() {
+        Gson gson = new GsonBuilder()
+                .registerTypeAdapter(ChessGame.class, new GameCodec.GameAdapter())
+                .registerTypeAdapter(ChessBoard.class, new GameCodec.BoardAdapter())
+                .create();
+        ChessGame game = new ChessGame();
+        play(game, "d4", "d5", "c4");
+        String json = gson.toJson(game);
+        Assertions.assertTrue(json.length() < new Gson().toJson(game).length() / 4,
+                "Binary form should be far smaller than the default JSON");
+        assertSameGame(game, gson.fromJson(json, ChessGame.class));
+        Assertions.assertEquals(game.getBoard(), gson.fromJson(gson.toJson(game.getBoard()), ChessBoard.class),
+                "Board did not survive Gson");
+        Assertions.assertNull(gson.fromJson("null", ChessGame.class), "Null game should stay null");
+        Assertions.assertThrows(JsonParseException.class, () -> gson.fromJson("\"AAAA\"", ChessGame.class));
+    }
+
+    @Test
+    @DisplayName("Malformed Input")
+    public void malformed() {
+        byte[] bytes = GameCodec.encode(new ChessGame());
+        Assertions.assertThrows(IllegalArgumentException.class, () -> GameCodec.decode(new byte[0]));
+        byte[] wrongVersion = bytes.clone();
+        wrongVersion[0] = 9;
+        Assertions.assertThrows(IllegalArgumentException.class, () -> GameCodec.decode(wrongVersion));
+        byte[] truncated = Arrays.copyOf(bytes, bytes.length - 1);
+        Assertions.assertThrows(IllegalArgumentException.class, () -> GameCodec.decode(truncated));
+        byte[] trailing = Arrays.copyOf(bytes, bytes.length + 1);
+        Assertions.assertThrows(IllegalArgumentException.class, () -> GameCodec.decode(trailing));
+        byte[] badPiece = bytes.clone();
+        badPiece[9] = (byte) 0xF0;
+        Assertions.assertThrows(IllegalArgumentException.class, () -> GameCodec.decode(badPiece));
+    }
+}
@@ -0,0 +1,135 @@
+package chess;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonObject;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+public class GameJsonTests {
+
+    private final Gson gson = new Gson();
+
+    /**
+     * Writes a game the way it was stored while the board was a {@code ChessPiece[][] squares}
+     * array, from its ranks written white side first, as in {@code "RNBQKBNR"}.
+     */
+    private static String legacyGame(String turn, String... ranks) {
+        StringBuilder json = new StringBuilder("{\"currentBoard\":{\"squares\":[");
+        for (int row = 0; row < 8; row++) {
+            json.append(row == 0 ? "[" : ",[");
+            for (int col = 0; col < 8; col++) {
+                json.append(col == 0 ? "" : ",");
+                char letter = ranks[row].charAt(col);
+                if (letter == '.') {
+                    json.append("null");
+                    continue;
+                }
+                String color = Character.isUpperCase(letter) ? "WHITE" : "BLACK";
+                String type = switch (Character.toUpperCase(letter)) {
+                    case 'K' -> "KING";
+                    case 'Q' -> "QUEEN";
+                    case 'B' -> "BISHOP";
+                    case 'N' -> "KNIGHT";
+                    case 'R' -> "ROOK";
+                    default -> "PAWN";
+                };
+                json.append("{\"pieceColor\":\"").append(color).append("\",\"type\":\"").append(type).append("\"}");
+            }
+            json.append(']');
+        }
+        return json.append("]},\"teamTurn\":\"").append(turn)
+                .append("\",\"playing\":true,\"whiteCheck\":false,\"blackCheck\":false}").toString();
+    }
+
+    @Test
+    @DisplayName("Loads Game Saved As Array Board")
+    public void legacyGame() throws InvalidMoveException {
+        String json = legacyGame("BLACK",
+                "RNBQKB.R",
+                "PPPP.PPP",
+                ".....N..",
+                "....P...",
+                "....p...",
+                "........",
+                "pppp.ppp",
+                "rnbqkbnr");
+        ChessGame game = gson.fromJson(json, ChessGame.class);
+
+        ChessGame expected = ChessGame.fromFen("rnbqkbnr/pppp1ppp/8/4p3/4P3/5N2/PPPP1PPP/RNBQKB1R b KQkq - 1 2");
+        Assertions.assertEquals(expected, game, "Saved game did not load");
+        Assertions.assertEquals(expected.getPositionKey(), game.getPositionKey(), "Zobrist key was not rebuilt");
+        Assertions.assertEquals(game.getBoard().evaluateFromScratch(), game.getBoard().evaluate(),
+                "Evaluation was not rebuilt");
+        game.makeMove(new ChessMove(ChessPosition.of(8, 2), ChessPosition.of(6, 3), null));
+        Assertions.assertEquals(ChessPiece.of(ChessGame.TeamColor.BLACK, ChessPiece.PieceType.KNIGHT),
+                game.getBoard().getPiece(ChessPosition.of(6, 3)), "Loaded game could not be played");
+    }
+
+    @Test
+    @DisplayName("Writes Array Board")
+    public void writesSquares() throws InvalidMoveException {
+        ChessGame game = new ChessGame();
+        game.makeMove(new ChessMove(ChessPosition.of(2, 4), ChessPosition.of(4, 4), null));
+        JsonObject board = gson.toJsonTree(game).getAsJsonObject().getAsJsonObject("currentBoard");
+        Assertions.assertEquals(1, board.size(), "Board should only hold its squares");
+        Assertions.assertEquals(8, board.getAsJsonArray("squares").size());
+        Assertions.assertTrue(board.getAsJsonArray("squares").get(1).getAsJsonArray().get(3).isJsonNull(),
+                "Moved pawn should have left d2");
+        Assertions.assertEquals(ChessPiece.of(ChessGame.TeamColor.WHITE, ChessPiece.PieceType.PAWN),
+                gson.fromJson(board.getAsJsonArray("squares").get(3).getAsJsonArray().get(3), ChessPiece.class));
+        Assertions.assertEquals(game, gson.fromJson(gson.toJson(game), ChessGame.class), "Game did not round trip");
+    }
+
+    @Test
+    @DisplayName("Loads Bitboard Board")
+    public void bitboardBoard() {
+        ChessBoard board = new ChessBoard();
+        board.resetBoard();
+        StringBuilder json = new StringBuilder("{\"pieces\":[");
+        for (int index = 0; index < ChessBoard.PIECE_KINDS; index++) {
+            json.append(index == 0 ? "" : ",").append(board.pieces[index]);
+        }
+        json.append("],\"zobristKey\":12345,\"middlegame\":7}");
+        ChessBoard loaded = gson.fromJson(json.toString(), ChessBoard.class);
+        Assertions.assertEquals(board, loaded, "Bitboard board did not load");
+        Assertions.assertEquals(board.evaluate(), loaded.evaluate(), "Saved evaluation should not be trusted");
+    }
+
+    @Test
+    @DisplayName("Repetitions Survive JSON")
+    public void repetitions() throws InvalidMoveException {
+        ChessGame game = new ChessGame();
+        int[][] shuffle = {{1, 7, 3, 6}, {8, 7, 6, 6}, {3, 6, 1, 7}, {6, 6, 8, 7}, {1, 7, 3, 6}, {8, 7, 6, 6},
+                {3, 6, 1, 7}};
+        for (int[] move : shuffle) {
+            game.makeMove(new ChessMove(ChessPosition.of(move[0], move[1]), ChessPosition.of(move[2], move[3]), null));
+        }
+        JsonObject json = gson.toJsonTree(game).getAsJsonObject();
+        Assertions.assertFalse(json.has("history"), "Full key history should not be serialized");
+        Assertions.assertEquals(7, json.getAsJsonArray("repetitions").size());
+
+        ChessGame loaded = gson.fromJson(json, ChessGame.class);
+        Assertions.assertTrue(loaded.isRepeated(), "Loaded game lost its earlier positions");
+        loaded.makeMove(new ChessMove(ChessPosition.of(6, 6), ChessPosition.of(8, 7), null));
+        Assertions.assertTrue(loaded.isThreefoldRepetition(), "Third repetition was not seen after loading");
+        Assertions.assertFalse(loaded.playing, "Threefold repetition should end the loaded game");
+    }
+
+    @Test
+    @DisplayName("Saved Castling Rights Follow The Board")
+    public void legacyCastling() {
+        String json = legacyGame("WHITE",
+                "RNBQ.BNR",
+                "PPPPKPPP",
+                "........",
+                "....P...",
+                "....p...",
+                "........",
+                "pppp.ppp",
+                "rnbqkbnr");
+        ChessGame game = gson.fromJson(json, ChessGame.class);
+        Assertions.assertEquals("rnbqkbnr/pppp1ppp/8/4p3/4P3/8/PPPPKPPP/RNBQ1BNR w kq - 0 1", game.toFen(),
+                "Moved king should not keep castling rights");
+    }
+}
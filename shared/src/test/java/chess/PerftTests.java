@@ -0,0 +1,98 @@
+package chess;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Node counts for the bundled suite, at depths small enough to keep the tests quick.
+ */
+public class PerftTests {
+
+    private static final String KIWIPETE = "r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1";
+    private static final String ENDGAME = "8/2p5/3p4/KP5r/1R3p1k/8/4P1P1/8 w - - 0 1";
+
+    @Test
+    @DisplayName("Starting Position")
+    public void startingPosition() {
+        ChessGame game = new ChessGame();
+        long[] expected = {20, 400, 8902, 197281};
+        for (int depth = 1; depth <= expected.length; depth++) {
+            Assertions.assertEquals(expected[depth - 1], Perft.perft(game, depth), "Wrong count at depth " + depth);
+        }
+        Assertions.assertEquals(new ChessGame(), game, "Perft did not restore the game");
+    }
+
+    @Test
+    @DisplayName("Suite Positions")
+    public void suitePositions() throws Exception {
+        for (Perft.Entry entry : Perft.loadSuite()) {
+            ChessGame game = ChessGame.fromFen(entry.fen());
+            for (int depth = 1; depth <= entry.counts().length && entry.counts()[depth - 1] < 200_000; depth++) {
+                Assertions.assertEquals(entry.counts()[depth - 1], Perft.perft(game, depth),
+                        "Wrong count at depth " + depth + " for " + entry.fen());
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("Castling And En Passant Undo")
+    public void specialMovesUndo() {
+        ChessGame game = ChessGame.fromFen(KIWIPETE);
+        ChessGame original = new ChessGame(game);
+        int[] moves = new int[PackedMove.MAX_MOVES];
+        int count = game.legalMoves(moves);
+        for (int i = 0; i < count; i++) {
+            game.doMove(moves[i]);
+            int[] replies = new int[PackedMove.MAX_MOVES];
+            int replyCount = game.legalMoves(replies);
+            for (int j = 0; j < replyCount; j++) {
+                game.doMove(replies[j]);
+                game.undoMove();
+            }
+            game.undoMove();
+            Assertions.assertEquals(original, game, "Undo did not restore the game");
+            Assertions.assertEquals(original.getPositionKey(), game.getPositionKey(), "Undo did not restore the key");
+        }
+    }
+
+    @Test
+    @DisplayName("Castling Needs The King At Home")
+    public void staleCastlingRights() {
+        String fen = "6R1/8/8/8/4k3/8/8/2K2R2 w - - 0 1";
+        ChessGame game = ChessGame.fromFen(fen);
+        game.restoreState(ChessGame.TeamColor.WHITE, true, false, false, 15, -1, 0, 1, new long[0]);
+        Assertions.assertEquals(Perft.perft(ChessGame.fromFen(fen), 2), Perft.perft(game, 2),
+                "A king off its home square should not castle");
+    }
+
+    @Test
+    @DisplayName("Divide Sums To Perft")
+    public void divide() {
+        ChessGame game = ChessGame.fromFen(KIWIPETE);
+        Map<ChessMove, Long> divide = Perft.divide(game, 3);
+        List<ChessMove> moves = Perft.legalMoves(game);
+        Assertions.assertEquals(moves.size(), divide.size(), "Divide should list every root move");
+        Assertions.assertEquals(Perft.perft(game, 3),
+                divide.values().stream().mapToLong(Long::longValue).sum(), "Divide does not add up");
+        Assertions.assertTrue(Perft.divide(game, 1).values().stream().allMatch(nodes -> nodes == 1),
+                "Each root move is one leaf at depth 1");
+        Assertions.assertThrows(IllegalArgumentException.class, () -> Perft.divide(game, 0),
+                "Depth 0 has no root moves to divide by");
+    }
+
+    @Test
+    @DisplayName("Parallel Matches Serial")
+    public void parallel() {
+        ChessGame endgame = ChessGame.fromFen(ENDGAME);
+        Assertions.assertEquals(Perft.perft(endgame, 5), Perft.parallelPerft(endgame, 5, ForkJoinPool.commonPool()),
+                "Parallel perft disagrees with serial perft");
+        Assertions.assertArrayEquals(new long[]{Perft.perft(endgame, 4), 197281},
+                Perft.parallelPerft(List.of(endgame, new ChessGame()), 4, ForkJoinPool.commonPool()),
+                "Bulk perft returned the wrong counts");
+    }
+}
@@ -0,0 +1,79 @@
+package chess.notation;
+
+import chess.ChessGame;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+
+public class PgnReaderTests {
+
+    private static final String PGN = """
+            [Event "Casual"]
+            [White "Smith, \\"Jo\\""]
+            [Black "Jones"]
+            [Result "1/2-1/2"]
+
+            1. e4 d5 2. e5 f5 3. exf6 {en passant} Nxf6 4. Nf3 (4. d4 {a (nested) comment} e6 (4... c5))
+            4... e6 5. Bc4 $1 Bd6 ; line comment
+            6. O-O O-O 1/2-1/2
+
+            [Event "Study"]
+            [SetUp "1"]
+            [FEN "8/P7/8/8/8/8/8/k6K w - - 0 1"]
+
+            1. a8=Q+ Kb2 2. Qb7+ *
+
+            [Event "Broken"]
+
+            1. e4 e5 2. Ke3 1-0
+
+            1. d4 Nf6
+            """;
+
+    private static PgnReader reader(String pgn) {
+        return new PgnReader(Channels.newChannel(new ByteArrayInputStream(pgn.getBytes(StandardCharsets.UTF_8))));
+    }
+
+    @Test
+    @DisplayName("Reads Games In Order")
+    public void readsGames() throws IOException {
+        ChessGame game = new ChessGame();
+        try (PgnReader reader = reader(PGN)) {
+            Assertions.assertTrue(reader.next(game), "Missing first game");
+            Assertions.assertEquals("Smith, \"Jo\"", reader.tag("White"), "Wrong tag value");
+            Assertions.assertEquals("1/2-1/2", reader.result(), "Wrong result");
+            Assertions.assertEquals(12, reader.moveCount(), "Variations should not be played");
+            Assertions.assertEquals("rnbq1rk1/ppp3pp/3bpn2/3p4/2B5/5N2/PPPP1PPP/RNBQ1RK1 w - - 4 7", game.toFen(),
+                    "Wrong final position");
+            Assertions.assertFalse(game.playing, "Finished game should be ended");
+
+            Assertions.assertTrue(reader.next(game), "Missing game set up from FEN");
+            Assertions.assertEquals("Study", reader.tag("Event"), "Tags should start over for each game");
+            Assertions.assertEquals("8/1Q6/8/8/8/8/1k6/7K b - - 2 2", game.toFen(), "Wrong final position");
+            Assertions.assertTrue(game.playing, "Unfinished game should still be playing");
+
+            Assertions.assertTrue(reader.next(game), "Missing game without tags or result");
+            Assertions.assertNull(reader.tag("Event"), "Tags from the skipped game leaked");
+            Assertions.assertEquals(2, reader.moveCount(), "Wrong move count");
+            Assertions.assertEquals("*", reader.result(), "Missing result should read as unknown");
+
+            Assertions.assertFalse(reader.next(game), "Read past the last game");
+            Assertions.assertEquals(3, reader.gamesRead(), "Wrong game count");
+            Assertions.assertEquals(1, reader.gamesSkipped(), "Illegal game should be skipped");
+            Assertions.assertEquals(17, reader.movesRead(), "Wrong move total");
+        }
+    }
+
+    @Test
+    @DisplayName("Empty Input")
+    public void emptyInput() throws IOException {
+        try (PgnReader reader = reader("\n\n")) {
+            Assertions.assertFalse(reader.next(new ChessGame()), "Empty input has no games");
+        }
+    }
+}
@@ -0,0 +1,101 @@
+package chess.notation;
+
+import chess.ChessGame;
+import chess.ChessMove;
+import chess.ChessPiece;
+import chess.ChessPosition;
+import chess.PackedMove;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+public class SanTests {
+
+    @Test
+    @DisplayName("Parses Moves")
+    public void parsesMoves() {
+        ChessGame game = new ChessGame();
+        Assertions.assertEquals(PackedMove.of(12, 28), San.parse(game, "e4"), "Wrong pawn push");
+        Assertions.assertEquals(PackedMove.of(6, 21), San.parse(game, "Nf3!?"), "Annotations should be ignored");
+        Assertions.assertEquals(-1, San.parse(game, "e5"), "Pawn cannot reach e5");
+        Assertions.assertEquals(-1, San.parse(game, "Qh5"), "Queen is blocked");
+        Assertions.assertEquals(-1, San.parse(game, "Zz9"), "Malformed move accepted");
+    }
+
+    @Test
+    @DisplayName("Disambiguation")
+    public void disambiguation() {
+        ChessGame game = ChessGame.fromFen("4k3/8/8/8/8/8/8/1N2KN2 w - - 0 1");
+        Assertions.assertEquals(-1, San.parse(game, "Nd2"), "Ambiguous move accepted");
+        Assertions.assertEquals(PackedMove.of(1, 11), San.parse(game, "Nbd2"), "Wrong knight");
+        Assertions.assertEquals(PackedMove.of(5, 11), San.parse(game, "Nf1d2"), "Wrong knight");
+    }
+
+    @Test
+    @DisplayName("Castling And Promotion")
+    public void castlingAndPromotion() {
+        ChessGame game = ChessGame.fromFen("r3k3/1P6/8/8/8/8/8/4K2R w Kq - 0 1");
+        Assertions.assertEquals(PackedMove.of(4, 6), San.parse(game, "O-O"), "Wrong castling move");
+        Assertions.assertEquals(PackedMove.of(4, 6), San.parse(game, "0-0+"), "Digit castling not accepted");
+        Assertions.assertEquals(-1, San.parse(game, "O-O-O"), "White cannot castle queenside");
+        int promotion = San.parse(game, "bxa8=N");
+        Assertions.assertEquals(49, PackedMove.from(promotion), "Wrong promotion start");
+        Assertions.assertEquals(56, PackedMove.to(promotion), "Wrong promotion end");
+        Assertions.assertEquals(ChessPiece.PieceType.KNIGHT, PackedMove.promotion(promotion),
+                "Wrong promotion piece");
+        Assertions.assertEquals(promotion, San.parse(game, "bxa8N"), "Promotion without '=' not accepted");
+    }
+
+    @Test
+    @DisplayName("Formats Moves")
+    public void formatsMoves() {
+        ChessGame game = ChessGame.fromFen("4k3/8/8/8/8/8/8/1N2KN2 w - - 0 1");
+        Assertions.assertEquals("Nbd2", San.format(game, PackedMove.of(1, 11)), "File should tell knights apart");
+        Assertions.assertEquals("Nh2", San.format(game, PackedMove.of(5, 15)), "Needless disambiguation");
+
+        game = ChessGame.fromFen("4k3/8/8/8/R7/8/8/R3K3 w - - 0 1");
+        Assertions.assertEquals("R1a3", San.format(game, PackedMove.of(0, 16)), "Rank should tell rooks apart");
+
+        game = ChessGame.fromFen("4k3/8/8/8/8/Q7/8/Q1Q1K3 w - - 0 1");
+        Assertions.assertEquals("Qa1b2", San.format(game, PackedMove.of(0, 9)), "Three queens need both");
+
+        game = ChessGame.fromFen("r3k3/1P6/8/8/8/8/8/4K2R w Kq - 0 1");
+        Assertions.assertEquals("O-O", San.format(game, PackedMove.of(4, 6)), "Wrong castling");
+        Assertions.assertEquals("bxa8=Q+", San.format(game, PackedMove.of(49, 56, ChessPiece.PieceType.QUEEN, 0)),
+                "Wrong promotion");
+        Assertions.assertEquals("r3k3/1P6/8/8/8/8/8/4K2R w Kq - 0 1", game.toFen(), "Formatting changed the game");
+
+        ChessGame mate = ChessGame.fromFen("6k1/5ppp/8/8/8/8/8/R5K1 w - - 0 1");
+        Assertions.assertEquals("Ra8#", San.format(mate, PackedMove.of(0, 56)), "Mate should be marked");
+        Assertions.assertThrows(IllegalArgumentException.class, () -> San.format(mate, PackedMove.of(0, 57)),
+                "Illegal move formatted");
+    }
+
+    @Test
+    @DisplayName("Round Trip")
+    public void roundTrip() {
+        ChessGame game = ChessGame.fromFen("r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1");
+        int[] moves = new int[PackedMove.MAX_MOVES];
+        int count = game.legalMoves(moves);
+        for (int i = 0; i < count; i++) {
+            String san = San.format(game, moves[i]);
+            Assertions.assertEquals(moves[i], San.parse(game, san), "Did not read back " + san);
+            Assertions.assertEquals(moves[i], PackedMove.fromChessMove(Uci.parse(Uci.format(moves[i])))
+                    | (moves[i] & PackedMove.CAPTURE), "Did not read back " + Uci.format(moves[i]));
+        }
+    }
+
+    @Test
+    @DisplayName("Coordinate Notation")
+    public void coordinates() {
+        Assertions.assertEquals("a1", Uci.squareName(0), "Wrong square name");
+        Assertions.assertEquals("h8", Uci.squareName(ChessPosition.of(8, 8)), "Wrong square name");
+        Assertions.assertEquals(ChessPosition.of(4, 5), Uci.parseSquare("e4"), "Wrong square");
+        Assertions.assertNull(Uci.parseSquare("i9"), "Bad square accepted");
+        Assertions.assertEquals(new ChessMove(ChessPosition.of(7, 5), ChessPosition.of(8, 5), ChessPiece.PieceType.QUEEN),
+                Uci.parse("e7e8q"), "Wrong promotion");
+        Assertions.assertEquals("e7e8q", Uci.format(Uci.parse("e7e8q")), "Did not round trip");
+        Assertions.assertThrows(IllegalArgumentException.class, () -> Uci.parse("e7e8k"), "Bad promotion accepted");
+        Assertions.assertThrows(IllegalArgumentException.class, () -> Uci.parse("e7"), "Short move accepted");
+    }
+}
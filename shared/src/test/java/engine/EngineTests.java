@@ -0,0 +1,107 @@
+package engine;
+
+import chess.ChessGame;
+import chess.ChessMove;
+import chess.ChessPosition;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import passoff.chess.TestUtilities;
+
+public class EngineTests {
+
+    @Test
+    @DisplayName("Finds Mate In One")
+    public void mateInOne() {
+        ChessGame game = new ChessGame();
+        game.setBoard(TestUtilities.loadBoard("""
+                | | | | | | | |k|
+                | | | | | | |p|p|
+                | | | | | | | | |
+                | | | | | | | | |
+                | | | | | | | | |
+                | | | | | | | | |
+                | | | | | | | | |
+                |R| | | | | |K| |
+                """));
+        SearchResult result = new Engine().search(game, SearchLimits.depth(4));
+        Assertions.assertEquals(new ChessMove(ChessPosition.of(1, 1), ChessPosition.of(8, 1), null),
+                result.bestMove(), "Engine missed Ra8#");
+        Assertions.assertEquals(Engine.MATE - 1, result.score(), "Mate should be scored one ply away");
+    }
+
+    @Test
+    @DisplayName("Takes Hanging Queen")
+    public void hangingQueen() {
+        ChessGame game = new ChessGame();
+        game.setBoard(TestUtilities.loadBoard("""
+                |k| | | | | | | |
+                | | | | | | | | |
+                | | | | | | | | |
+                | | | | |q| | | |
+                | | | | | | | | |
+                | | | | | | | | |
+                | | | | | | | | |
+                | | | | |R| | |K|
+                """));
+        SearchResult result = new Engine().search(game, SearchLimits.depth(3));
+        Assertions.assertEquals(new ChessMove(ChessPosition.of(1, 5), ChessPosition.of(5, 5), null),
+                result.bestMove(), "Engine did not take the queen");
+    }
+
+    @Test
+    @DisplayName("Respects Node Budget")
+    public void nodeBudget() {
+        ChessGame game = new ChessGame();
+        SearchResult result = new Engine().search(game, SearchLimits.nodes(5000));
+        Assertions.assertNotNull(result.bestMove(), "Engine should always return a move");
+        Assertions.assertTrue(result.nodes() <= 5000, "Engine searched past its node budget");
+        Assertions.assertEquals(new ChessGame(), game, "Search changed the caller's game");
+    }
+
+    @Test
+    @DisplayName("Table Round Trip")
+    public void tableRoundTrip() {
+        TranspositionTable table = new TranspositionTable(1);
+        long key = 0x1234_5678_9ABC_DEF0L;
+        table.store(key, 0x8123, -Engine.MATE + 3, 7, TranspositionTable.LOWER);
+        long entry = table.probe(key);
+        Assertions.assertEquals(0x8123, TranspositionTable.move(entry), "Wrong move");
+        Assertions.assertEquals(-Engine.MATE + 3, TranspositionTable.score(entry), "Wrong score");
+        Assertions.assertEquals(7, TranspositionTable.depth(entry), "Wrong depth");
+        Assertions.assertEquals(TranspositionTable.LOWER, TranspositionTable.bound(entry), "Wrong bound");
+
+        long sameSlot = key + ((long) table.capacity() << 32);
+        Assertions.assertEquals(0, table.probe(sameSlot), "Different position should miss");
+        table.store(sameSlot, 0, 0, 3, TranspositionTable.EXACT);
+        Assertions.assertNotEquals(0, table.probe(key), "Shallower entry replaced a deeper one");
+        Assertions.assertEquals(2, table.hits(), "Wrong hit count");
+        Assertions.assertEquals(1, table.collisions(), "Wrong collision count");
+    }
+
+    @Test
+    @DisplayName("Lazy SMP Finds Hanging Queen")
+    public void lazySmp() {
+        ChessGame game = new ChessGame();
+        game.setBoard(TestUtilities.loadBoard("""
+                |k| | | | | | | |
+                | | | | | | | | |
+                | | | | | | | | |
+                | | | | |q| | | |
+                | | | | | | | | |
+                | | | | | | | | |
+                | | | | | | | | |
+                | | | | |R| | |K|
+                """));
+        for (int threads : new int[]{1, 3}) {
+            try (LazySmpSearch search = new LazySmpSearch(threads, 1)) {
+                for (int i = 0; i < 3; i++) {
+                    SearchResult result = search.search(game, SearchLimits.depth(4));
+                    Assertions.assertEquals(new ChessMove(ChessPosition.of(1, 5), ChessPosition.of(5, 5), null),
+                            result.bestMove(), "Engine did not take the queen with " + threads + " thread(s)");
+                    Assertions.assertEquals(4, result.depth(), "Search stopped early");
+                }
+            }
+        }
+    }
+}